@@ -0,0 +1,62 @@
+/**
+ * Measures one simulation step of each agent: the target moves, and the agent moves unless it has
+ * already captured the target, exactly as in {@link TrialRunner#runEpisode}.
+ * <p>
+ * Capture is part of the step because several agents (Agent4, Agent5) update their belief state there.
+ * A fresh agent and target are created for every measurement iteration so the agent's state keeps
+ * evolving the way it does in a real episode.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentStepBenchmark {
+    @Param({"Agent0", "Agent1", "Agent2", "Agent3", "Agent4", "Agent5", "Agent6", "Agent7"})
+    public String agent;
+
+    @Param({"40", "400", "2000"})
+    public int nodes;
+
+    @Param({"1000"})
+    public int particles;
+
+    private Environment environment;
+    private AgentFactory factory;
+    private Agent pursuer;
+    private Target target;
+    private long iteration = 0;
+
+    @Setup(Level.Trial)
+    public void buildEnvironment() {
+        environment = BenchmarkSupport.environment(nodes);
+        factory = BenchmarkSupport.factory(agent, particles);
+    }
+
+    @Setup(Level.Iteration)
+    public void startEpisode() {
+        SplittableRandom random = Seeds.stream(BenchmarkSupport.SEED, iteration++);
+        target = new Target(environment, random.nextInt(nodes) + 1, random.split());
+        pursuer = factory.create(environment, random.nextInt(nodes) + 1, random.split());
+    }
+
+    @Benchmark
+    public int move() {
+        target.move(environment);
+        if (!pursuer.capture(target)) {
+            pursuer.move(environment, target);
+        }
+        return pursuer.getStepsTaken();
+    }
+}
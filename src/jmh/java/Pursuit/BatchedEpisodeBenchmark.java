@@ -0,0 +1,55 @@
+/**
+ * Measures trials per second of the {@link BatchedEpisodeEngine} for the agents that have a
+ * {@link BatchMove}, against the lane count.
+ * <p>
+ * With one lane the engine runs one episode at a time, which is the baseline the batched runs are
+ * compared with; {@link EpisodeBenchmark} gives the same agents through their objects.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchedEpisodeBenchmark {
+    private static final int TRIALS = 1024; // Trials per benchmark operation
+
+    @Param({"Agent1", "Agent2"})
+    public String agent;
+
+    @Param({"40", "400"})
+    public int nodes;
+
+    @Param({"1", "16", "256"})
+    public int lanes;
+
+    private BatchedEpisodeEngine engine;
+    private BatchMove batchMove;
+    private long agentSeed;
+    private long firstTrial = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new BatchedEpisodeEngine(BenchmarkSupport.environment(nodes), lanes);
+        batchMove = BatchMove.all().get(agent);
+        agentSeed = Seeds.derive(BenchmarkSupport.SEED, agent);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public long trials() {
+        CaptureStats stats = new CaptureStats();
+        engine.run(agent, batchMove, agentSeed, firstTrial, TRIALS, stats, null);
+        firstTrial += TRIALS;
+        return stats.sum();
+    }
+}
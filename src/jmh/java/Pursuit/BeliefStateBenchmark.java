@@ -0,0 +1,61 @@
+/**
+ * Measures the {@link BeliefState} kernel shared by the belief-state agents on seeded environments.
+ * <p>
+ * {@code propagateAndNormalize} is Agent7's HMM forward step, {@code reweightAndNormalize} is Agent5's
+ * observation update and {@code argmaxRandomTie} is how Agent4 and Agent6 pick a node.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeliefStateBenchmark {
+    @Param({"40", "4000", "400000"})
+    public int nodes;
+
+    private Environment environment;
+    private TransitionModel model;
+    private BeliefState belief;
+    private SplittableRandom rand;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkSupport.environment(nodes);
+        model = new TransitionModel(environment);
+        belief = new BeliefState(nodes);
+        rand = new SplittableRandom(BenchmarkSupport.SEED);
+    }
+
+    @Benchmark
+    public double propagate() {
+        return belief.propagate(environment);
+    }
+
+    @Benchmark
+    public double propagateAndNormalize() {
+        belief.propagateAndNormalize(model);
+        return belief.get(1);
+    }
+
+    @Benchmark
+    public double reweightAndNormalize() {
+        belief.reweightAndNormalize(1 + rand.nextInt(nodes), 0.8, 0.2 / (nodes - 1));
+        return belief.get(1);
+    }
+
+    @Benchmark
+    public int argmaxRandomTie() {
+        return belief.argmaxRandomTie(rand);
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Entry point of the benchmark jar.
+ * <p>
+ * Accepts the usual JMH command-line options and always adds the GC profiler, so every result
+ * reports the allocation rate ({@code gc.alloc.rate.norm}) next to the timing.
+ * </p>
+ * <pre>
+ * {@code
+ * mvn -P jmh package
+ * java -jar target/benchmarks.jar AgentStepBenchmark -p nodes=400
+ * }
+ * </pre>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
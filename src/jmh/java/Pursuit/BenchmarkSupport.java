@@ -0,0 +1,80 @@
+/**
+ * Shared fixtures for the benchmarks: seeded environments and agent factories.
+ * <p>
+ * Everything is derived from a fixed seed so that two runs of the same benchmark measure exactly
+ * the same graphs, start nodes and random decisions.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+
+class BenchmarkSupport {
+    static final long SEED = 42; // Root seed of every benchmark
+
+    private BenchmarkSupport() {
+        // Static helpers only
+    }
+
+    /**
+     * Builds the seeded environment with the given number of nodes.
+     *
+     * @param nodes the number of nodes
+     * @return the environment
+     */
+    static Environment environment(int nodes) {
+        return new Environment(nodes, new SplittableRandom(Seeds.derive(SEED, "Environment")));
+    }
+
+    /**
+     * Returns the factory of the named agent, giving Agent7 the requested number of particles.
+     *
+     * @param agent     the agent class name
+     * @param particles the number of particles for Agent7
+     * @return the agent factory
+     */
+    static AgentFactory factory(String agent, int particles) {
+        if (agent.equals("Agent7")) {
+            return (environment, startNode, rand) -> new Agent7(environment, startNode, rand, particles);
+        }
+        return AgentFactory.forName(agent);
+    }
+
+    /**
+     * Builds a transition matrix like the initial model of {@link Agent7}: a small probability of
+     * staying put and the rest split between the neighboring node numbers.
+     *
+     * @param nodes the number of nodes
+     * @return the transition matrix, indexed from 1
+     */
+    static double[][] transitionMatrix(int nodes) {
+        double initialProb = 0.025;
+        double[][] transitionMatrix = new double[nodes + 1][nodes + 1];
+        for (int i = 1; i <= nodes; i++) {
+            transitionMatrix[i][i] = initialProb;
+            if (i > 1) {
+                transitionMatrix[i][i - 1] = (1.0 - initialProb) / 3;
+            }
+            if (i < nodes) {
+                transitionMatrix[i][i + 1] = (1.0 - initialProb) / 3;
+            }
+        }
+        return transitionMatrix;
+    }
+
+    /**
+     * Builds the likelihoods Agent7 computes after examining node 1.
+     *
+     * @param nodes the number of nodes
+     * @return the likelihood of each node, indexed from 1
+     */
+    static double[] likelihoods(int nodes) {
+        double[] likelihoods = new double[nodes + 1];
+        for (int i = 1; i <= nodes; i++) {
+            likelihoods[i] = 1.0 / i;
+        }
+        return likelihoods;
+    }
+}
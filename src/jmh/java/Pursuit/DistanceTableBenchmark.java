@@ -0,0 +1,33 @@
+/**
+ * Measures the one-time construction of the all-pairs {@link DistanceTable}.
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistanceTableBenchmark {
+    @Param({"400", "2000", "4096"})
+    public int nodes;
+
+    private Environment environment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkSupport.environment(nodes);
+    }
+
+    @Benchmark
+    public DistanceTable build() {
+        return new DistanceTable(environment);
+    }
+}
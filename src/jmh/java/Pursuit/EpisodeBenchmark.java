@@ -0,0 +1,48 @@
+/**
+ * Measures end-to-end throughput in episodes per second for each agent.
+ * <p>
+ * Each invocation runs one complete trial through {@link TrialRunner#runTrial}, with the same
+ * seeding as {@link Main} and the same in-place agent reset between trials, so the numbers
+ * translate directly into sweep wall-clock time.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EpisodeBenchmark {
+    @Param({"Agent0", "Agent1", "Agent2", "Agent3", "Agent4", "Agent5", "Agent6", "Agent7"})
+    public String agent;
+
+    @Param({"40", "400"})
+    public int nodes;
+
+    @Param({"1000"})
+    public int particles;
+
+    private TrialSlot slot; // Agent and target reused by every episode
+    private long agentSeed;
+    private long trial = 0;
+    private final CaptureStats stats = new CaptureStats(); // Fixed-size, so it can absorb every episode
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        slot = new TrialSlot(BenchmarkSupport.environment(nodes), BenchmarkSupport.factory(agent, particles));
+        agentSeed = Seeds.derive(BenchmarkSupport.SEED, agent);
+    }
+
+    @Benchmark
+    public boolean episode() {
+        return TrialRunner.runTrial(slot, agentSeed, trial++, EpisodeBudget.UNLIMITED, stats, null);
+    }
+}
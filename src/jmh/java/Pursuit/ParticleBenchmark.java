@@ -0,0 +1,56 @@
+/**
+ * Measures {@link Particle#update}, the per-particle predict and resample step, against particle
+ * sets of different sizes.
+ * <p>
+ * The transition matrix mirrors the initial model of {@link Agent7}, and the likelihoods are those
+ * Agent7 computes after examining node 1.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleBenchmark {
+    @Param({"40", "400"})
+    public int nodes;
+
+    @Param({"100", "1000", "10000"})
+    public int particles;
+
+    private final List<Particle> particleList = new ArrayList<>();
+    private double[][] transitionMatrix;
+    private double[] likelihoods;
+    private SplittableRandom rand;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rand = new SplittableRandom(BenchmarkSupport.SEED);
+        for (int i = 0; i < particles; i++) {
+            particleList.add(new Particle(rand.nextInt(nodes) + 1));
+        }
+        transitionMatrix = BenchmarkSupport.transitionMatrix(nodes);
+        likelihoods = BenchmarkSupport.likelihoods(nodes);
+    }
+
+    @Benchmark
+    public int update() {
+        Particle particle = particleList.get(next);
+        next = (next + 1) % particles;
+        particle.update(likelihoods, transitionMatrix, rand, particleList, particles);
+        return particle.getPosition();
+    }
+}
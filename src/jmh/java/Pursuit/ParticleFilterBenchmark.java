@@ -0,0 +1,50 @@
+/**
+ * Measures one complete {@link ParticleFilter} step (predict, weight and systematic resampling of
+ * every particle) for large particle counts.
+ * <p>
+ * Transitions follow the initial {@link TransitionModel} of the seeded environment and are drawn
+ * through a {@link TransitionSampler}; the likelihoods are the same as in {@link ParticleBenchmark}.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleFilterBenchmark {
+    @Param({"40", "400"})
+    public int nodes;
+
+    @Param({"1000", "100000", "1000000"})
+    public int particles;
+
+    private ParticleFilter filter;
+    private TransitionSampler transitions;
+    private double[] likelihoods;
+    private SplittableRandom rand;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rand = new SplittableRandom(BenchmarkSupport.SEED);
+        filter = new ParticleFilter(particles);
+        filter.scatter(nodes, rand);
+        transitions = new TransitionSampler(new TransitionModel(BenchmarkSupport.environment(nodes)));
+        likelihoods = BenchmarkSupport.likelihoods(nodes);
+    }
+
+    @Benchmark
+    public int step() {
+        filter.step(transitions, likelihoods, rand);
+        return filter.position(0);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Measures the shortest-path routines the agents run on every step: the {@link BfsWorkspace} search
+ * {@link Environment#nextHop(int, int)} runs for {@link Agent2} and {@link Agent5} on graphs too large
+ * for a distance table, the {@link DijkstraWorkspace} search behind {@link Agent7}'s route,
+ * and a lookup in the environment's precomputed {@link DistanceTable}.
+ * <p>
+ * Each invocation searches between the next of a fixed set of seeded random node pairs.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+    private static final int PAIRS = 1024; // Number of distinct source/goal pairs, a power of two
+
+    @Param({"40", "400", "2000"})
+    public int nodes;
+
+    private Environment environment;
+    private BfsWorkspace bfs;
+    private DijkstraWorkspace dijkstra;
+    private final int[] sources = new int[PAIRS];
+    private final int[] goals = new int[PAIRS];
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkSupport.environment(nodes);
+        SplittableRandom rand = new SplittableRandom(BenchmarkSupport.SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = rand.nextInt(nodes) + 1;
+            goals[i] = rand.nextInt(nodes) + 1;
+        }
+        bfs = new BfsWorkspace(environment);
+        dijkstra = new DijkstraWorkspace(environment);
+        environment.nextHop(1, 1); // Build the distance table outside the measurement
+    }
+
+    @Benchmark
+    public int bfsNextHop() {
+        int pair = next++ & (PAIRS - 1);
+        return bfs.nextHop(sources[pair], goals[pair]);
+    }
+
+    @Benchmark
+    public int dijkstraNextHop() {
+        int pair = next++ & (PAIRS - 1);
+        return dijkstra.nextHop(sources[pair], goals[pair], EdgeWeight.LABEL_DISTANCE);
+    }
+
+    @Benchmark
+    public int tableNextHop() {
+        int pair = next++ & (PAIRS - 1);
+        return environment.nextHop(sources[pair], goals[pair]);
+    }
+}
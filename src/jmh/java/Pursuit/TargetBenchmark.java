@@ -0,0 +1,37 @@
+/**
+ * Measures a single random-walk step of the {@link Target}.
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetBenchmark {
+    @Param({"40", "400", "2000", "100000"})
+    public int nodes;
+
+    private Environment environment;
+    private Target target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkSupport.environment(nodes);
+        target = new Target(environment, 1, new SplittableRandom(BenchmarkSupport.SEED));
+    }
+
+    @Benchmark
+    public int move() {
+        target.move(environment);
+        return target.getCurrentNode();
+    }
+}
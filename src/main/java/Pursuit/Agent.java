@@ -12,17 +12,27 @@
  */
 package Pursuit;
 
+import java.util.random.RandomGenerator;
+
 abstract class Agent {
+    protected final Environment environment; // The environment the agent is sized for
+    protected RandomGenerator rand;           // The agent's own random stream, replaced on reset
     protected int currentNode;
     protected int stepsTaken = 0;
     protected int successfulCaptures = 0;
 
     /**
-     * Constructs a new Agent with the given starting node.
+     * Constructs a new Agent with the given environment, starting node and random stream.
+     * Agents size their internal state from the environment's node count, and draw every random
+     * decision from the given stream so that a trial can be replayed from its seed.
      *
-     * @param startNode The starting node for the agent.
+     * @param environment The environment in which the agent operates.
+     * @param startNode   The starting node for the agent.
+     * @param rand        The random number generator used for the agent's decisions.
      */
-    public Agent(int startNode) {
+    public Agent(Environment environment, int startNode, RandomGenerator rand) {
+        this.environment = environment;
+        this.rand = rand;
         this.currentNode = startNode;
     }
 
@@ -75,11 +85,18 @@ abstract class Agent {
     }
 
     /**
-     * Resets the agent to a new starting node.
-     * The specific reset behavior is defined in subclasses.
+     * Reinitializes the agent in place for a new trial, as if it had just been constructed with the
+     * given starting node and random stream. Subclasses that keep per-trial state override this,
+     * call it first, and then reset their own arrays rather than allocating new ones, so that a
+     * runner can reuse one agent for any number of trials.
      *
      * @param startNode The new starting node for the agent.
-     * @return A new Agent instance with the specified starting node.
+     * @param rand      The random number generator for the new trial.
      */
-    public abstract Agent reset(int startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        this.rand = rand;
+        this.currentNode = startNode;
+        this.stepsTaken = 0;
+        this.successfulCaptures = 0;
+    }
 }
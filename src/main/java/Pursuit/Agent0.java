@@ -1,13 +1,11 @@
 package Pursuit;
 
-class Agent0 extends Agent {
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
-    private Environment environment; // Add a class member to store the Environment instance
+import java.util.random.RandomGenerator;
 
+class Agent0 extends Agent {
 
-    public Agent0(int startNode) {
-        super(startNode);
+    public Agent0(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
     }
 
     @Override
@@ -15,6 +13,15 @@ class Agent0 extends Agent {
         // note Agent 0 does not move
     }
 
+    /**
+     * The batch form of {@link #move(Environment, Target)}: Agent 0 never moves.
+     *
+     * @see BatchMove
+     */
+    static void moveBatch(Environment env, int[] agentNode, int[] targetNode, int[] steps, int lanes) {
+        // note Agent 0 does not move
+    }
+
     @Override
     public boolean capture(Target target) {
         boolean captured = currentNode == target.getCurrentNode();
@@ -33,9 +40,4 @@ class Agent0 extends Agent {
     public int getSuccessfulCaptures() {
         return successfulCaptures;
     }
-    @Override
-    public Agent0 reset(int startNode) {
-        return new Agent0(startNode);
-    }
-
 }
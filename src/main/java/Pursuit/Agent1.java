@@ -9,15 +9,12 @@
 package Pursuit;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 class Agent1 extends Agent {
-    private Environment environment; // Add a class member to store the Environment instance
 
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
-
-    public Agent1(int startNode) {
-        super(startNode);
+    public Agent1(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
     }
 
     /**
@@ -33,12 +30,27 @@ class Agent1 extends Agent {
         stepsTaken++;
 
         // Calculate the best neighboring node closest to the target
-        int nextNode = calculateBestNextNode(env, target.getCurrentNode());
+        int nextNode = calculateBestNextNode(env, currentNode, target.getCurrentNode());
 
         // Move to the calculated neighboring node
         currentNode = nextNode;
     }
 
+    /**
+     * The batch form of {@link #move(Environment, Target)}: moves the agent of every lane that has not
+     * caught its target to the neighbor closest to that target.
+     *
+     * @see BatchMove
+     */
+    static void moveBatch(Environment env, int[] agentNode, int[] targetNode, int[] steps, int lanes) {
+        for (int lane = 0; lane < lanes; lane++) {
+            if (agentNode[lane] != targetNode[lane]) {
+                steps[lane]++;
+                agentNode[lane] = calculateBestNextNode(env, agentNode[lane], targetNode[lane]);
+            }
+        }
+    }
+
     /**
      * Attempts to capture the target.
      *
@@ -73,16 +85,18 @@ class Agent1 extends Agent {
      * Calculates the best neighboring node closest to the target position.
      *
      * @param env            The environment in which the agent is moving.
+     * @param node           The node the agent is at.
      * @param targetPosition The current position of the target.
      * @return The best neighboring node to move to.
      */
-    private int calculateBestNextNode(Environment env, int targetPosition) {
+    private static int calculateBestNextNode(Environment env, int node, int targetPosition) {
         // Find the best neighboring node closest to the target position
-        List<Integer> neighbors = env.getNeighbors(currentNode);
+        int degree = env.getDegree(node);
         int bestNextNode = -1;
         double minDistance = Double.MAX_VALUE;
 
-        for (int neighbor : neighbors) {
+        for (int i = 0; i < degree; i++) {
+            int neighbor = env.getNeighbor(node, i);
             double distance = distanceToTarget(neighbor, targetPosition);
             if (distance < minDistance) {
                 minDistance = distance;
@@ -99,19 +113,8 @@ class Agent1 extends Agent {
      * @param targetPosition The current position of the target.
      * @return The distance to the target.
      */
-    private double distanceToTarget(int node, int targetPosition) {
+    private static double distanceToTarget(int node, int targetPosition) {
         // Simple distance calculation between two nodes
         return Math.abs(node - targetPosition);
     }
-
-    /**
-     * Resets the agent to a new starting node.
-     *
-     * @param startNode The new starting node for the agent.
-     * @return A new Agent1 instance with the specified starting node.
-     */
-    @Override
-    public Agent1 reset(int startNode) {
-        return new Agent1(startNode);
-    }
 }
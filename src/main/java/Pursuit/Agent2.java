@@ -2,26 +2,26 @@
  * Represents an agent that uses breadth-first search (BFS) to navigate an environment and capture a target.
  * The agent maintains a count of the number of steps taken and successful captures.
  * <p>
- * The agent finds the shortest path to the target using BFS and moves along that path.
+ * The agent finds the shortest path to the target with {@link Environment#nextHop(int, int)}, which
+ * answers from the precomputed table on small graphs and runs BFS otherwise, and moves along that path.
  * </p>
  * @author [Robert Jean Pierre]
  */
 package Pursuit;
 
-import java.util.*;
+import java.util.random.RandomGenerator;
 
 class Agent2 extends Agent {
-    private Random rand = new Random();
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
 
     /**
      * Constructs an Agent2 with the given starting node.
      *
-     * @param startNode the starting node of the agent
+     * @param environment the environment the agent operates in
+     * @param startNode   the starting node of the agent
+     * @param rand        the random number generator for the agent's decisions
      */
-    public Agent2(int startNode) {
-        super(startNode);
+    public Agent2(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
     }
 
     /**
@@ -35,13 +35,22 @@ class Agent2 extends Agent {
         // Increment steps taken
         stepsTaken++;
 
-        // Find the shortest path using BFS from the current node to the target node
-        List<Integer> shortestPath = findShortestPath(env, target.getCurrentNode());
+        // Move to the next node on the shortest path to the target (if available)
+        currentNode = env.nextHop(currentNode, target.getCurrentNode());
+    }
 
-        // Move to the next node in the shortest path (if available)
-        if (shortestPath.size() > 1) {
-            int nextNode = shortestPath.get(1);
-            currentNode = nextNode;
+    /**
+     * The batch form of {@link #move(Environment, Target)}: moves the agent of every lane that has not
+     * caught its target one step along a shortest path to that target.
+     *
+     * @see BatchMove
+     */
+    static void moveBatch(Environment env, int[] agentNode, int[] targetNode, int[] steps, int lanes) {
+        for (int lane = 0; lane < lanes; lane++) {
+            if (agentNode[lane] != targetNode[lane]) {
+                steps[lane]++;
+                agentNode[lane] = env.nextHop(agentNode[lane], targetNode[lane]);
+            }
         }
     }
 
@@ -89,50 +98,4 @@ class Agent2 extends Agent {
     public int getCurrentNode() {
         return currentNode;
     }
-
-    /**
-     * Finds the shortest path from the current node to the target node using BFS.
-     *
-     * @param env        the environment
-     * @param targetNode the target node
-     * @return a list representing the shortest path to the target node
-     */
-    private List<Integer> findShortestPath(Environment env, int targetNode) {
-        Queue<List<Integer>> queue = new LinkedList<>();
-        Set<Integer> visited = new HashSet<>();
-        queue.offer(new ArrayList<>(Collections.singletonList(currentNode)));
-        visited.add(currentNode);
-
-        while (!queue.isEmpty()) {
-            List<Integer> path = queue.poll();
-            int currentNode = path.get(path.size() - 1);
-
-            if (currentNode == targetNode) {
-                return path;
-            }
-
-            for (int neighbor : env.getNeighbors(currentNode)) {
-                if (!visited.contains(neighbor)) {
-                    List<Integer> newPath = new ArrayList<>(path);
-                    newPath.add(neighbor);
-                    queue.offer(newPath);
-                    visited.add(neighbor);
-                }
-            }
-        }
-
-        // Return an empty list if there is no path to the target
-        return new ArrayList<>();
-    }
-
-    /**
-     * Resets the agent with the given starting node.
-     *
-     * @param startNode the starting node for the reset
-     * @return a new Agent2 instance with the given starting node
-     */
-    @Override
-    public Agent2 reset(int startNode) {
-        return new Agent2(startNode);
-    }
 }
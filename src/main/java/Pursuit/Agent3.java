@@ -13,24 +13,23 @@
  */
 package Pursuit;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.random.RandomGenerator;
 
 class Agent3 extends Agent {
-    private double[] beliefState = new double[41]; // Assuming nodes are numbered from 1 to 40
+    private final BeliefState beliefState; // Probability of the target being at each node
     private int examinedNode;
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
 
     /**
      * Constructs a new Agent3 with the given starting node.
      *
-     * @param startNode The starting node for the agent.
+     * @param environment The environment in which the agent operates.
+     * @param startNode   The starting node for the agent.
+     * @param rand        The random number generator for the agent's decisions.
      */
-    public Agent3(int startNode) {
-        super(startNode);
+    public Agent3(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
         this.examinedNode = startNode; // Assuming the examined node is the start node
-        Arrays.fill(beliefState, 1.0 / 40); // Initially, the target is equally likely to be in any node
+        beliefState = new BeliefState(environment.getNodeCount()); // Initially, the target is equally likely to be in any node
     }
 
     /**
@@ -72,21 +71,13 @@ class Agent3 extends Agent {
     private void updateBeliefState(Environment env, boolean foundTarget) {
         if (foundTarget) {
             // If the target is found, update the belief state to certainty
-            Arrays.fill(beliefState, 0);
-            beliefState[examinedNode] = 1.0;
+            beliefState.collapse(examinedNode);
             successfulCaptures++;
         } else {
             // If the target is not found, update the belief state based on how the target moves
-            double[] newBeliefState = new double[41];
-            for (int i = 1; i <= 40; i++) {
-                List<Integer> neighbors = env.getNeighbors(i);
-                for (int neighbor : neighbors) {
-                    newBeliefState[neighbor] += beliefState[i] / neighbors.size();
-                }
-            }
+            beliefState.propagate(env);
             // Set the belief state for the examined node to 0 since the target was not found there
-            newBeliefState[examinedNode] = 0;
-            beliefState = newBeliefState;
+            beliefState.set(examinedNode, 0);
         }
     }
 
@@ -126,13 +117,15 @@ class Agent3 extends Agent {
     }
 
     /**
-     * Resets the agent to a new starting node.
+     * Resets the agent to a new starting node in place, making every node equally likely again.
      *
      * @param startNode The new starting node for the agent.
-     * @return A new Agent3 instance with the specified starting node.
+     * @param rand      The random number generator for the new trial.
      */
     @Override
-    public Agent3 reset(int startNode) {
-        return new Agent3(startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        super.reset(startNode, rand);
+        examinedNode = startNode;
+        beliefState.fillUniform();
     }
 }
@@ -13,26 +13,21 @@
  */
 package Pursuit;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 class Agent4 extends Agent {
-    private double[] beliefState = new double[41]; // Assuming nodes are numbered from 1 to 40
-    private Random rand = new Random();
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
-    private Environment env; // Store the Environment object here
+    private final BeliefState beliefState; // Probability of the target being at each node
 
     /**
      * Constructs a new Agent4 with the given starting node.
      *
-     * @param startNode The starting node for the agent.
+     * @param environment The environment in which the agent operates.
+     * @param startNode   The starting node for the agent.
+     * @param rand        The random number generator for the agent's decisions.
      */
-    public Agent4(int startNode) {
-        super(startNode);
-        Arrays.fill(beliefState, 1.0 / 40); // Initially, the target is equally likely to be in any node
+    public Agent4(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
+        beliefState = new BeliefState(environment.getNodeCount()); // Initially, the target is equally likely to be in any node
     }
 
     /**
@@ -43,9 +38,6 @@ class Agent4 extends Agent {
      */
     @Override
     public void move(Environment env, Target target) {
-        // Store the Environment object
-        this.env = env;
-
         // Increment steps taken
         stepsTaken++;
 
@@ -59,21 +51,8 @@ class Agent4 extends Agent {
      * @return The node with the highest belief.
      */
     public int bestMove() {
-        // Find the node(s) with the highest belief
-        List<Integer> bestNodes = new ArrayList<>();
-        double maxBelief = 0;
-        for (int i = 1; i <= 40; i++) {
-            if (beliefState[i] > maxBelief) {
-                bestNodes.clear();
-                bestNodes.add(i);
-                maxBelief = beliefState[i];
-            } else if (beliefState[i] == maxBelief) {
-                bestNodes.add(i);
-            }
-        }
-
         // Return a random node with the highest belief
-        return bestNodes.get(rand.nextInt(bestNodes.size()));
+        return beliefState.argmaxRandomTie(rand);
 
     }
 
@@ -85,23 +64,16 @@ class Agent4 extends Agent {
      */
     @Override
     public boolean capture(Target target) {
-        // Store the Environment object
-        this.env = target.getEnvironment();
-
         // Update belief state based on the result of examining the node
         boolean captured = target.getCurrentNode() == currentNode;
         if (captured) {
-            Arrays.fill(beliefState, 0);
-            beliefState[currentNode] = 1;
+            beliefState.collapse(currentNode);
             // Increment successful captures
             successfulCaptures++;
             return true;
         } else {
-            beliefState[currentNode] = 0;
-            // Update belief state based on the known movement of the target
-            for (int neighbor : env.getNeighbors(currentNode)) {
-                beliefState[neighbor] += 1.0 / env.getNeighbors(neighbor).size();
-            }
+            // Rule out the current node and account for the known movement of the target
+            beliefState.observeMiss(environment, currentNode);
             return false;
         }
     }
@@ -126,13 +98,14 @@ class Agent4 extends Agent {
     }
 
     /**
-     * Resets the agent to a new starting node.
+     * Resets the agent to a new starting node in place, making every node equally likely again.
      *
      * @param startNode The new starting node for the agent.
-     * @return A new Agent4 instance with the specified starting node.
+     * @param rand      The random number generator for the new trial.
      */
     @Override
-    public Agent4 reset(int startNode) {
-        return new Agent4(startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        super.reset(startNode, rand);
+        beliefState.fillUniform();
     }
 }
@@ -11,24 +11,21 @@
  */
 package Pursuit;
 
-import java.util.*;
+import java.util.random.RandomGenerator;
 
 class Agent5 extends Agent {
-    private double[] beliefState = new double[41]; // Assuming nodes are numbered from 1 to 40.
-    private Set<Integer> visitedNodes = new HashSet<>();
-    private Random rand = new Random();
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
+    private final BeliefState beliefState; // Probability of the target being at each node
 
     /**
      * Constructs an Agent5 with the given starting node.
      *
-     * @param startNode the starting node of the agent
+     * @param environment the environment the agent operates in
+     * @param startNode   the starting node of the agent
+     * @param rand        the random number generator for the agent's decisions
      */
-    public Agent5(int startNode) {
-        super(startNode);
-        visitedNodes.add(startNode);
-        Arrays.fill(beliefState, 1.0 / 40); // Initially, the target is equally likely to be in any node
+    public Agent5(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
+        beliefState = new BeliefState(environment.getNodeCount()); // Initially, the target is equally likely to be in any node
     }
 
     /**
@@ -39,80 +36,22 @@ class Agent5 extends Agent {
      */
     @Override
     public void move(Environment env, Target target) {
-        // Update belief state based on the known movement of the target
+        // Update belief state based on the known movement of the target, then normalize it
         int targetNode = target.getCurrentNode();
-        for (int i = 1; i <= 40; i++) {
-            double transitionProb = (i == targetNode) ? 0.8 : 0.2 / 39;
-            beliefState[i] = transitionProb * beliefState[i];
-        }
-
-        // Normalize belief state
-        double totalBelief = Arrays.stream(beliefState).sum();
-        for (int i = 1; i <= 40; i++) {
-            beliefState[i] /= totalBelief;
-        }
+        int nodeCount = env.getNodeCount();
+        beliefState.reweightAndNormalize(targetNode, 0.8, 0.2 / (nodeCount - 1));
 
-        // Find the shortest path to the target using BFS
-        int shortestPathNode = bfsShortestPath(env, currentNode, targetNode);
+        // Find the shortest path to the target, from the precomputed table on small graphs or using BFS
+        int shortestPathNode = env.nextHop(currentNode, targetNode);
 
         // Move to the next node in the shortest path
         currentNode = shortestPathNode;
 
-        // Update belief state based on the result of examining the node
-        beliefState[currentNode] = 0;
-        // Update belief state based on the known movement of the target
-        for (int neighbor : env.getNeighbors(currentNode)) {
-            beliefState[neighbor] += 1.0 / env.getNeighbors(neighbor).size();
-        }
+        // Update belief state based on the result of examining the node and the known movement of the target
+        beliefState.observeMiss(env, currentNode);
         stepsTaken++;
     }
 
-    /**
-     * Helper method to find the shortest path from startNode to targetNode using BFS.
-     *
-     * @param env        the environment
-     * @param startNode  the starting node
-     * @param targetNode the target node
-     * @return the next node in the shortest path
-     */
-    // Helper method to find the shortest path from startNode to targetNode using BFS
-    private int bfsShortestPath(Environment env, int startNode, int targetNode) {
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(startNode);
-
-        // Array to keep track of visited nodes during BFS
-        boolean[] visited = new boolean[41];
-        visited[startNode] = true;
-
-        // Array to keep track of the parent nodes in the shortest path
-        int[] parent = new int[41];
-        Arrays.fill(parent, -1);
-
-        while (!queue.isEmpty()) {
-            int currentNode = queue.poll();
-
-            // If the target node is found, reconstruct the shortest path and return the next node to move
-            if (currentNode == targetNode) {
-                int nextNode = targetNode;
-                while (parent[nextNode] != startNode) {
-                    nextNode = parent[nextNode];
-                }
-                return nextNode;
-            }
-
-            for (int neighbor : env.getNeighbors(currentNode)) {
-                if (!visited[neighbor]) {
-                    queue.add(neighbor);
-                    visited[neighbor] = true;
-                    parent[neighbor] = currentNode;
-                }
-            }
-        }
-
-        // If the target node is not reachable, return the current node
-        return startNode;
-    }
-
     /**
      * Captures the target if the agent's current node matches the target's current node.
      *
@@ -127,8 +66,7 @@ class Agent5 extends Agent {
             // Increment successful captures
             successfulCaptures++;
             // Reset belief state to capture the target
-            Arrays.fill(beliefState, 0);
-            beliefState[target.getCurrentNode()] = 1;
+            beliefState.collapse(target.getCurrentNode());
         }
         return captured;
     }
@@ -152,14 +90,15 @@ class Agent5 extends Agent {
     }
 
     /**
-     * Resets the agent with the given starting node.
+     * Resets the agent with the given starting node, reusing its belief state.
      *
      * @param startNode the starting node for the reset
-     * @return a new Agent5 instance with the given starting node
+     * @param rand      the random number generator for the new trial
      */
     @Override
-    public Agent5 reset(int startNode) {
-        return new Agent5(startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        super.reset(startNode, rand);
+        beliefState.fillUniform();
     }
 
     /**
@@ -12,25 +12,21 @@
  */
 package Pursuit;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 class Agent6 extends Agent {
-    private double[] beliefState = new double[41]; // Assuming nodes are numbered from 1 to 40
-    private Random rand = new Random();
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
+    private final BeliefState beliefState; // Probability of the target being at each node
 
     /**
      * Constructs a new <code>Agent6</code> object and initializes the belief state.
      *
-     * @param startNode The starting node of the agent.
+     * @param environment The environment in which the agent operates.
+     * @param startNode   The starting node of the agent.
+     * @param rand        The random number generator for the agent's decisions.
      */
-    public Agent6(int startNode) {
-        super(startNode);
-        Arrays.fill(beliefState, 1.0 / 40); // Initially, the target is equally likely to be in any node
+    public Agent6(Environment environment, int startNode, RandomGenerator rand) {
+        super(environment, startNode, rand);
+        beliefState = new BeliefState(environment.getNodeCount()); // Initially, the target is equally likely to be in any node
     }
 
     /**
@@ -79,21 +75,8 @@ class Agent6 extends Agent {
      * @return The index of the examined node.
      */
     public int examineNode() {
-        // Find the node(s) with the highest belief
-        List<Integer> bestNodes = new ArrayList<>();
-        double maxBelief = 0;
-        for (int i = 1; i <= 40; i++) {
-            if (beliefState[i] > maxBelief) {
-                bestNodes.clear();
-                bestNodes.add(i);
-                maxBelief = beliefState[i];
-            } else if (beliefState[i] == maxBelief) {
-                bestNodes.add(i);
-            }
-        }
-
         // Return a random node with the highest belief
-        return bestNodes.get(rand.nextInt(bestNodes.size()));
+        return beliefState.argmaxRandomTie(rand);
     }
 
     /**
@@ -105,14 +88,10 @@ class Agent6 extends Agent {
      */
     public void updateBeliefState(Environment env, Target target, int examinedNode) {
         if (target.getCurrentNode() == examinedNode) {
-            Arrays.fill(beliefState, 0);
-            beliefState[examinedNode] = 1;
+            beliefState.collapse(examinedNode);
         } else {
-            beliefState[examinedNode] = 0;
-            // Update belief state based on the known movement of the target
-            for (int neighbor : env.getNeighbors(examinedNode)) {
-                beliefState[neighbor] += 1.0 / env.getNeighbors(neighbor).size();
-            }
+            // Rule out the examined node and account for the known movement of the target
+            beliefState.observeMiss(env, examinedNode);
         }
     }
 
@@ -125,10 +104,11 @@ class Agent6 extends Agent {
      */
     public int bestMove(Environment env, int examinedNode) {
         // Find the adjacent node that reduces the distance to the examined node
-        List<Integer> neighbors = env.getNeighbors(currentNode);
+        int degree = env.getDegree(currentNode);
         int bestNode = currentNode; // Stay in the current node if no better option
         int currentDistance = Math.abs(currentNode - examinedNode);
-        for (int neighbor : neighbors) {
+        for (int i = 0; i < degree; i++) {
+            int neighbor = env.getNeighbor(currentNode, i);
             int newDistance = Math.abs(neighbor - examinedNode);
             if (newDistance < currentDistance) {
                 bestNode = neighbor;
@@ -175,13 +155,14 @@ class Agent6 extends Agent {
     }
 
     /**
-     * Resets the agent to a new starting node.
+     * Resets the agent to a new starting node in place, making every node equally likely again.
      *
      * @param startNode The new starting node for the agent.
-     * @return A new <code>Agent6</code> object with the specified starting node.
+     * @param rand      The random number generator for the new trial.
      */
     @Override
-    public Agent6 reset(int startNode) {
-        return new Agent6(startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        super.reset(startNode, rand);
+        beliefState.fillUniform();
     }
 }
@@ -8,45 +8,65 @@
  * </p>
  * <h2>Key Features:</h2>
  * <ul>
- *   <li>Particle Filtering for state estimation.</li>
- *   <li>Hidden Markov Models for transition probabilities.</li>
+ *   <li>Particle Filtering for state estimation, with particles stored as primitive arrays.</li>
+ *   <li>Hidden Markov Models for transition probabilities, stored sparsely along the graph's edges.</li>
  *   <li>Epsilon-greedy policy for action selection.</li>
+ *   <li>Dijkstra routing towards the most likely target location.</li>
  * </ul>
  *
  * @author [Robert Jean Pierre]
  * @see Environment
  * @see Target
- * @see Particle
+ * @see ParticleFilter
+ * @see TransitionModel
  */
 package Pursuit;
 
-import java.util.*;
+import java.util.random.RandomGenerator;
 
 class Agent7 extends Agent {
-    private final int NUM_PARTICLES = 1000; // Number of particles for the Particle Filter
-    private List<Particle> particles = new ArrayList<>();
-    private Random rand = new Random();
-    private int stepsTaken = 0;
-    private int successfulCaptures = 0;
+    static final int DEFAULT_PARTICLES = 1000; // Default number of particles for the Particle Filter
+    private final ParticleFilter particles; // Particle positions and weights, stored as arrays
     private int lastKnownTargetPosition; // Last known position of the target
 
-    // Define HMM transition probabilities
-    private double[][] transitionMatrix = new double[41][41];
-    private int[][] observationCounts = new int[41][41];
-    private double[] beliefState = new double[41]; // Belief state for the target's location
+    private final int nodeCount; // Nodes are numbered from 1 to nodeCount
+    private final TransitionModel transitionModel; // Learned transitions along the graph's edges
+    private final TransitionSampler transitionSampler; // Alias tables over the rows of transitionModel
+    private final BeliefState beliefState; // Belief state for the target's location
+    private final double[] likelihoods; // Observation likelihood of each node, reused every step
 
     /**
      * Constructs a new Agent7 with the given starting node.
-     * Initializes belief state, particles, and transition matrix.
+     * Initializes belief state, particles, and transition model.
      *
-     * @param startNode The starting node for the agent.
+     * @param environment The environment in which the agent operates.
+     * @param startNode   The starting node for the agent.
+     * @param rand        The random number generator for the agent's decisions.
      */
-    public Agent7(int startNode) {
-        super(startNode);
-        Arrays.fill(beliefState, 1.0 / 40); // Initially, the target is equally likely to be in any node
+    public Agent7(Environment environment, int startNode, RandomGenerator rand) {
+        this(environment, startNode, rand, DEFAULT_PARTICLES);
+    }
+
+    /**
+     * Constructs a new Agent7 with the given starting node and number of particles.
+     * Initializes belief state, particles, and transition model.
+     *
+     * @param environment  The environment in which the agent operates.
+     * @param startNode    The starting node for the agent.
+     * @param rand         The random number generator for the agent's decisions.
+     * @param numParticles The number of particles for the Particle Filter.
+     * @throws IllegalArgumentException if the number of particles is not positive
+     */
+    public Agent7(Environment environment, int startNode, RandomGenerator rand, int numParticles) {
+        super(environment, startNode, rand);
+        nodeCount = environment.getNodeCount();
+        transitionModel = new TransitionModel(environment);
+        transitionSampler = new TransitionSampler(transitionModel);
+        beliefState = new BeliefState(nodeCount); // Initially, the target is equally likely to be in any node
+        likelihoods = new double[nodeCount + 1];
+        particles = new ParticleFilter(numParticles);
         lastKnownTargetPosition = startNode;
         initializeParticles();
-        initializeTransitionMatrix();
     }
 
     /**
@@ -59,38 +79,22 @@ class Agent7 extends Agent {
     @Override
     public void move(Environment env, Target target) {
         stepsTaken++;
-        int predictedPosition = predictNextPosition();
         int examinedNode = getHighestProbabilityNode();
         if (target.getCurrentNode() == examinedNode) {
             updateParticles(target.getCurrentNode());
         } else {
             updateBeliefState(env, examinedNode);
+            particles.step(transitionSampler, likelihoods, rand);
         }
 
-        Map<Integer, Integer> prev = new HashMap<>();
-        Map<Integer, Double> dist = new HashMap<>();
-        for (int i = 1; i <= 40; i++) {
-            dist.put(i, Double.MAX_VALUE);
-        }
-        dist.put(currentNode, 0.0);
-
-        PriorityQueue<Integer> queue = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        queue.add(currentNode);
-
-        while (!queue.isEmpty()) {
-            int node = queue.poll();
-            for (int neighbor : env.getNeighbors(node)) {
-                double newDist = dist.get(node) + distanceToTarget(node, neighbor);
-                if (newDist < dist.get(neighbor)) {
-                    dist.put(neighbor, newDist);
-                    prev.put(neighbor, node);
-                    queue.remove(neighbor);
-                    queue.add(neighbor);
-                }
-            }
+        // Follow the cheapest route to the most likely node, weighting edges by label distance.
+        // When already standing on it, step to the neighbor closest to it instead.
+        int goal = getHighestProbabilityNode();
+        if (goal < 1 || goal == currentNode) {
+            currentNode = getClosestNeighbor(env, goal);
+        } else {
+            currentNode = env.weightedNextHop(currentNode, goal, EdgeWeight.LABEL_DISTANCE);
         }
-
-        currentNode = getClosestNeighbor(env, getHighestProbabilityNode());
     }
 
     /**
@@ -121,72 +125,53 @@ class Agent7 extends Agent {
         return successfulCaptures;
     }
 
+    /**
+     * Resets the agent in place for a new trial. The learned transitions are forgotten, the belief
+     * state returns to uniform and the particles are scattered again, all within the arrays that
+     * were allocated at construction, so a reset draws the same random numbers as a new agent would.
+     *
+     * @param startNode The new starting node for the agent.
+     * @param rand      The random number generator for the new trial.
+     */
     @Override
-    public Agent7 reset(int startNode) {
-        return new Agent7(startNode);
+    public void reset(int startNode, RandomGenerator rand) {
+        super.reset(startNode, rand);
+        transitionModel.reset();
+        transitionSampler.invalidateAll();
+        beliefState.fillUniform();
+        lastKnownTargetPosition = startNode;
+        initializeParticles();
     }
 
     /**
      * Updates the belief state based on the examined node and the environment.
-     * Utilizes distance calculations and observation counts to update the transition matrix.
+     * Utilizes distance calculations and observation counts to update the transition model.
      *
      * @param env           The environment in which the agent operates.
      * @param examinedNode  The node that was examined by the agent.
      */
     private void updateBeliefState(Environment env, int examinedNode) {
-        double[] likelihoods = new double[41];
-        for (int i = 1; i <= 40; i++) {
+        for (int i = 1; i <= nodeCount; i++) {
             double distance = distanceToTarget(examinedNode, i);
             likelihoods[i] = 1.0 / (distance + 1);
         }
 
-        observationCounts[lastKnownTargetPosition][examinedNode]++;
-
-        for (int i = 1; i <= 40; i++) {
-            int totalCount = observationCounts[lastKnownTargetPosition][i];
-            if (totalCount > 0) {
-                transitionMatrix[lastKnownTargetPosition][i] = (double) observationCounts[lastKnownTargetPosition][i] / totalCount;
-            }
+        // Only a row whose probabilities actually changed needs a new alias table
+        if (transitionModel.observe(lastKnownTargetPosition, examinedNode)) {
+            transitionSampler.invalidate(lastKnownTargetPosition);
         }
 
-        updateBeliefStateWithHMM(examinedNode);
+        updateBeliefStateWithHMM();
         lastKnownTargetPosition = examinedNode;
     }
 
     /**
      * Updates the belief state using the Hidden Markov Model (HMM).
-     * Applies transition probabilities to calculate the new belief state.
-     *
-     * @param examinedNode  The node that was examined by the agent.
+     * Applies transition probabilities to calculate the new belief state, visiting only the
+     * transitions along the graph's edges.
      */
-    private void updateBeliefStateWithHMM(int examinedNode) {
-        double[] newBeliefState = new double[41];
-        for (int i = 1; i <= 40; i++) {
-            double prob = 0.0;
-            for (int j = 1; j <= 40; j++) {
-                prob += beliefState[j] * transitionMatrix[j][i];
-            }
-            newBeliefState[i] = prob;
-        }
-        beliefState = newBeliefState;
-
-        double totalBelief = Arrays.stream(beliefState).sum();
-        for (int i = 1; i <= 40; i++) {
-            beliefState[i] /= totalBelief;
-        }
-    }
-
-    /**
-     * Predicts the next position of the target based on the particles.
-     *
-     * @return The predicted position of the target.
-     */
-    private int predictNextPosition() {
-        int sumPosition = 0;
-        for (Particle particle : particles) {
-            sumPosition += particle.getPosition();
-        }
-        return sumPosition / NUM_PARTICLES;
+    private void updateBeliefStateWithHMM() {
+        beliefState.propagateAndNormalize(transitionModel);
     }
 
     /**
@@ -200,34 +185,12 @@ class Agent7 extends Agent {
         return Math.abs(node - targetPosition);
     }
 
-    /**
-     * Initializes the transition matrix for the Hidden Markov Model (HMM).
-     * Sets initial probabilities based on the environment's topology.
-     */
-    private void initializeTransitionMatrix() {
-        double initialProb = 0.025;
-        for (int i = 1; i <= 40; i++) {
-            for (int j = 1; j <= 40; j++) {
-                if (i == j) {
-                    transitionMatrix[i][j] = initialProb;
-                } else if (Math.abs(i - j) == 1) {
-                    transitionMatrix[i][j] = (1.0 - initialProb) / 3;
-                } else {
-                    transitionMatrix[i][j] = 0.0;
-                }
-            }
-        }
-    }
-
     /**
      * Initializes the particles for the Particle Filter.
      * Creates particles with random positions.
      */
     private void initializeParticles() {
-        for (int i = 0; i < NUM_PARTICLES; i++) {
-            int position = rand.nextInt(40) + 1;
-            particles.add(new Particle(position));
-        }
+        particles.scatter(nodeCount, rand);
     }
 
     /**
@@ -236,9 +199,7 @@ class Agent7 extends Agent {
      * @param targetPosition  The current position of the target.
      */
     private void updateParticles(int targetPosition) {
-        for (Particle particle : particles) {
-            particle.setPosition(targetPosition);
-        }
+        particles.collapse(targetPosition);
     }
 
     /**
@@ -249,10 +210,11 @@ class Agent7 extends Agent {
      * @return The closest neighbor node to the target position.
      */
     private int getClosestNeighbor(Environment env, int targetPosition) {
-        List<Integer> neighbors = env.getNeighbors(currentNode);
+        int degree = env.getDegree(currentNode);
         int closestNeighbor = -1;
         double minDistance = Double.MAX_VALUE;
-        for (int neighbor : neighbors) {
+        for (int i = 0; i < degree; i++) {
+            int neighbor = env.getNeighbor(currentNode, i);
             double distance = distanceToTarget(neighbor, targetPosition);
             if (distance < minDistance) {
                 minDistance = distance;
@@ -268,14 +230,6 @@ class Agent7 extends Agent {
      * @return The node with the highest probability.
      */
     private int getHighestProbabilityNode() {
-        int highestProbNode = -1;
-        double highestProb = Double.MIN_VALUE;
-        for (int i = 1; i <= 40; i++) {
-            if (beliefState[i] > highestProb) {
-                highestProb = beliefState[i];
-                highestProbNode = i;
-            }
-        }
-        return highestProbNode;
+        return beliefState.argmax();
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/**
+ * Creates fresh agent instances for the trials of a simulation.
+ * <p>
+ * Every agent class exposes a constructor taking the environment, a starting node and a random
+ * stream, so a factory is usually a constructor reference such as {@code Agent2::new}. Trials that run in
+ * parallel each call the factory, so no agent state is ever shared between threads.
+ * </p>
+ * <p>
+ * A runner calls the factory only when it has no agent to reuse: later trials on the same worker
+ * {@linkplain Agent#reset(int, java.util.random.RandomGenerator) reset} the agent in place instead.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+@FunctionalInterface
+interface AgentFactory {
+
+    /**
+     * Creates a new agent in the given environment.
+     *
+     * @param environment the environment the agent operates in
+     * @param startNode   the starting node for the agent
+     * @param rand        the random number generator for the agent's decisions
+     * @return a new agent instance
+     */
+    Agent create(Environment environment, int startNode, RandomGenerator rand);
+
+    /**
+     * Returns the factories of every agent, keyed by agent class name, in evaluation order.
+     *
+     * @return an unmodifiable map from agent name to factory
+     */
+    static Map<String, AgentFactory> all() {
+        Map<String, AgentFactory> agents = new LinkedHashMap<>();
+        agents.put("Agent0", Agent0::new);
+        agents.put("Agent1", Agent1::new);
+        agents.put("Agent2", Agent2::new);
+        agents.put("Agent3", Agent3::new);
+        agents.put("Agent4", Agent4::new);
+        agents.put("Agent5", Agent5::new);
+        agents.put("Agent6", Agent6::new);
+        agents.put("Agent7", Agent7::new);
+        return Collections.unmodifiableMap(agents);
+    }
+
+    /**
+     * Returns the factory of the agent with the given class name.
+     *
+     * @param name the agent class name, such as {@code "Agent2"}
+     * @return the factory for that agent
+     * @throws IllegalArgumentException if there is no agent with that name
+     */
+    static AgentFactory forName(String name) {
+        AgentFactory factory = all().get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown agent: " + name);
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * A batch form of {@link Agent#move(Environment, Target)} for agents whose whole state is their
+ * position and step count, used by the {@link BatchedEpisodeEngine}.
+ * <p>
+ * Instead of one agent object per episode, the engine keeps the positions of many episodes in
+ * parallel arrays and hands all of them to a single call, so the agent's decision runs as one loop
+ * over the lanes rather than one virtual call per episode.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@FunctionalInterface
+interface BatchMove {
+
+    /**
+     * Moves the agent of every lane that has not already caught its target, exactly as the agent's
+     * own {@code move} would, and counts the steps it takes.
+     *
+     * @param env        the environment shared by all lanes
+     * @param agentNode  the agent position of each lane, updated in place
+     * @param targetNode the target position of each lane
+     * @param steps      the step count of each lane, updated in place
+     * @param lanes      the number of lanes in use, starting from index 0
+     */
+    void move(Environment env, int[] agentNode, int[] targetNode, int[] steps, int lanes);
+
+    /**
+     * Returns the batch moves of the agents that have one, keyed by agent class name.
+     *
+     * @return an unmodifiable map from agent name to batch move
+     */
+    static Map<String, BatchMove> all() {
+        Map<String, BatchMove> agents = new LinkedHashMap<>();
+        agents.put("Agent0", Agent0::moveBatch);
+        agents.put("Agent1", Agent1::moveBatch);
+        agents.put("Agent2", Agent2::moveBatch);
+        return Collections.unmodifiableMap(agents);
+    }
+}
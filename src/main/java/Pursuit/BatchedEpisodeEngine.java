@@ -0,0 +1,276 @@
+/**
+ * Runs many pursuit episodes in lockstep, for agents that provide a {@link BatchMove}.
+ * <p>
+ * The engine owns B lanes. Each lane holds one episode, stored as a structure of arrays: the target
+ * and agent positions, the step counter and the target's random stream of every lane sit in
+ * parallel arrays. One round moves every target, then hands all agent positions to a single
+ * {@link BatchMove} call, then retires each lane whose agent caught its target. A retired lane is
+ * refilled with the next trial straight away, and once no trials are left the last lane is moved
+ * into the gap, so the lanes in use are always the dense prefix {@code [0, lanes)}. A lane that
+ * runs out of its {@link EpisodeBudget} is retired the same way, recorded as censored.
+ * </p>
+ * <p>
+ * Every trial is set up from its own stream exactly as {@link TrialRunner#runTrial} does, so a
+ * batched run plays the same trials as one episode at a time. Lanes finish out of trial order,
+ * which leaves the count, sum, mean, extremes and histogram of the recorded {@link CaptureStats}
+ * unchanged; only the rounding of the variance can differ. Each lane also keeps its trial index,
+ * start nodes and wall time, so a retired lane can be written to a {@link ResultSink} batch, and its
+ * {@link SimulationEvents.EpisodeEvent}, begun when the lane is filled and finished when it retires.
+ * A lane's wall time is its share of every round it took part in: the round's duration divided by
+ * the lanes in use. It is amortized that way because the lanes run interleaved, so the time a lane
+ * is filled covers the work of every other lane too.
+ * </p>
+ * <p>
+ * When {@link Metrics} are enabled, each batch move and each capture pass is timed and recorded
+ * under the agent's name, amortized over the lanes it covered.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.SplittableRandom;
+
+class BatchedEpisodeEngine {
+    private final Environment environment;
+    private final EpisodeBudget budget; // Limits of every episode
+    private final int[] agentNode;  // Agent position of each lane
+    private final int[] targetNode; // Target position of each lane
+    private final int[] steps;      // Agent step counter of each lane
+    private final long[] rounds;    // Rounds played by each lane
+    private final long[] deadline;  // Clock reading at which each lane is cut off
+    private final SplittableRandom[] targetRand; // Random stream of each lane's target
+    private final long[] trial;       // Trial index of each lane
+    private final int[] agentStart;   // Agent start node of each lane
+    private final int[] targetStart;  // Target start node of each lane
+    private final long[] wallNanos;   // Amortized wall time of each lane's trial so far
+    private final SimulationEvents.EpisodeEvent[] events; // Flight recorder event of each lane's trial
+
+    /**
+     * Constructs an engine with the given number of lanes, whose episodes run until the capture.
+     *
+     * @param environment the environment shared by all episodes
+     * @param lanes       the number of episodes advanced together
+     */
+    BatchedEpisodeEngine(Environment environment, int lanes) {
+        this(environment, lanes, EpisodeBudget.UNLIMITED);
+    }
+
+    /**
+     * Constructs an engine with the given number of lanes, whose episodes are cut off at the given budget.
+     *
+     * @param environment the environment shared by all episodes
+     * @param lanes       the number of episodes advanced together
+     * @param budget      the limits of every episode
+     */
+    BatchedEpisodeEngine(Environment environment, int lanes, EpisodeBudget budget) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Lane count must be positive, got " + lanes);
+        }
+        this.environment = environment;
+        this.budget = budget;
+        this.agentNode = new int[lanes];
+        this.targetNode = new int[lanes];
+        this.steps = new int[lanes];
+        this.rounds = new long[lanes];
+        this.deadline = new long[lanes];
+        this.targetRand = new SplittableRandom[lanes];
+        this.trial = new long[lanes];
+        this.agentStart = new int[lanes];
+        this.targetStart = new int[lanes];
+        this.wallNanos = new long[lanes];
+        this.events = new SimulationEvents.EpisodeEvent[lanes];
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return the lane count
+     */
+    int lanes() {
+        return agentNode.length;
+    }
+
+    /**
+     * Runs a contiguous range of trials to completion or to the budget, recording the rounds and steps of each.
+     *
+     * @param agentName  the agent's class name, under which its metrics and events are recorded
+     * @param agent      the batch move of the agent
+     * @param agentSeed  the seed from which every trial's random streams are derived
+     * @param firstTrial the index of the first trial
+     * @param numTrials  the number of trials to run
+     * @param stats      receives the rounds and steps of every trial as it finishes, as a capture or as censored
+     * @param records    receives the record of every trial as it finishes, or null
+     */
+    void run(String agentName, BatchMove agent, long agentSeed, long firstTrial, int numTrials, CaptureStats stats,
+             ResultSink.Batch records) {
+        long nextTrial = firstTrial;
+        long endTrial = firstTrial + numTrials;
+        long maxRounds = budget.maxRounds();
+        Metrics.AgentTimers timers = Metrics.ENABLED ? Metrics.timers(agentName) : null;
+
+        // Fill as many lanes as there are trials
+        int lanes = 0;
+        while (lanes < agentNode.length && nextTrial < endTrial) {
+            start(lanes++, agentSeed, nextTrial++);
+        }
+
+        long roundStart = records != null ? System.nanoTime() : 0;
+        for (long round = 1; lanes > 0; round++) {
+            // Retire the lanes that have used up their budget
+            boolean checkClock = budget.isTimed() && round % EpisodeBudget.CLOCK_CHECK_INTERVAL == 0;
+            long now = checkClock ? System.nanoTime() : 0;
+            int lane = 0;
+            while (lane < lanes) {
+                if (rounds[lane] < maxRounds && !(checkClock && now - deadline[lane] > 0)) {
+                    rounds[lane]++;
+                    lane++;
+                } else {
+                    stats.censor(rounds[lane]);
+                    events[lane].finish(agentName, steps[lane], false);
+                    if (records != null) {
+                        record(lane, false, records);
+                    }
+                    lanes = retire(lane, lanes, agentSeed, nextTrial < endTrial ? nextTrial++ : -1);
+                }
+            }
+
+            // Move every target
+            for (lane = 0; lane < lanes; lane++) {
+                int node = targetNode[lane];
+                targetNode[lane] = environment.getNeighbor(node, targetRand[lane].nextInt(environment.getDegree(node)));
+            }
+
+            // Move every agent that has not caught its target
+            move(agent, lanes, timers);
+
+            // Share the round's wall time among the lanes that played it
+            if (records != null && lanes > 0) {
+                long roundEnd = System.nanoTime();
+                long share = (roundEnd - roundStart) / lanes;
+                for (lane = 0; lane < lanes; lane++) {
+                    wallNanos[lane] += share;
+                }
+                roundStart = roundEnd;
+            }
+
+            // Retire the finished lanes, refilling them while trials remain
+            int checked = lanes;
+            long checkStart = Metrics.ENABLED ? System.nanoTime() : 0;
+            lane = 0;
+            while (lane < lanes) {
+                if (agentNode[lane] != targetNode[lane]) {
+                    lane++;
+                } else {
+                    stats.record(rounds[lane], steps[lane]);
+                    events[lane].finish(agentName, steps[lane], true);
+                    if (records != null) {
+                        record(lane, true, records);
+                    }
+                    int before = lanes;
+                    lanes = retire(lane, lanes, agentSeed, nextTrial < endTrial ? nextTrial++ : -1);
+                    if (lanes == before) {
+                        lane++; // Refilled; the new trial starts moving next round
+                    }
+                }
+            }
+            if (Metrics.ENABLED) {
+                timers.capture.record((System.nanoTime() - checkStart) / checked, checked);
+            }
+        }
+    }
+
+    /**
+     * Calls the batch move on the lanes in use, timing it when metrics are enabled.
+     *
+     * @param agent  the batch move of the agent
+     * @param lanes  the number of lanes in use
+     * @param timers the agent's timers, or null when metrics are disabled
+     */
+    private void move(BatchMove agent, int lanes, Metrics.AgentTimers timers) {
+        if (!Metrics.ENABLED) {
+            agent.move(environment, agentNode, targetNode, steps, lanes);
+            return;
+        }
+        long start = System.nanoTime();
+        agent.move(environment, agentNode, targetNode, steps, lanes);
+        timers.move.record((System.nanoTime() - start) / lanes, lanes);
+    }
+
+    /**
+     * Appends the record of a finished lane's trial.
+     *
+     * @param lane     the finished lane
+     * @param captured whether the agent caught its target
+     * @param records  the batch to append to
+     */
+    private void record(int lane, boolean captured, ResultSink.Batch records) {
+        records.add(trial[lane], agentStart[lane], targetStart[lane], steps[lane], captured, wallNanos[lane]);
+    }
+
+    /**
+     * Retires a finished lane, refilling it with the next trial or, when none is left, with the
+     * last lane in use.
+     *
+     * @param lane      the finished lane
+     * @param lanes     the number of lanes in use
+     * @param agentSeed the seed from which the trials' random streams are derived
+     * @param nextTrial the trial to refill the lane with, or -1 if none is left
+     * @return the number of lanes in use afterwards
+     */
+    private int retire(int lane, int lanes, long agentSeed, long nextTrial) {
+        if (nextTrial >= 0) {
+            start(lane, agentSeed, nextTrial);
+            return lanes;
+        }
+        moveLane(lanes - 1, lane);
+        return lanes - 1;
+    }
+
+    /**
+     * Sets up a lane for a new trial, drawing from the trial's stream in the same order as
+     * {@link TrialRunner#runTrial}.
+     *
+     * @param lane      the lane to set up
+     * @param agentSeed the seed from which the trial's random streams are derived
+     * @param trial     the index of the trial
+     */
+    private void start(int lane, long agentSeed, long trial) {
+        SplittableRandom random = Seeds.stream(agentSeed, trial);
+        int nodeCount = environment.getNodeCount();
+        agentNode[lane] = random.nextInt(nodeCount) + 1;
+        targetNode[lane] = random.nextInt(nodeCount) + 1;
+        targetRand[lane] = random.split();
+        steps[lane] = 0;
+        rounds[lane] = 0;
+        this.trial[lane] = trial;
+        agentStart[lane] = agentNode[lane];
+        targetStart[lane] = targetNode[lane];
+        wallNanos[lane] = 0;
+        deadline[lane] = budget.deadline(System.nanoTime());
+        events[lane] = new SimulationEvents.EpisodeEvent();
+        events[lane].begin();
+    }
+
+    /**
+     * Copies one lane over another.
+     *
+     * @param from the lane to copy
+     * @param to   the lane to overwrite
+     */
+    private void moveLane(int from, int to) {
+        agentNode[to] = agentNode[from];
+        targetNode[to] = targetNode[from];
+        steps[to] = steps[from];
+        rounds[to] = rounds[from];
+        deadline[to] = deadline[from];
+        targetRand[to] = targetRand[from];
+        targetRand[from] = null;
+        trial[to] = trial[from];
+        agentStart[to] = agentStart[from];
+        targetStart[to] = targetStart[from];
+        wallNanos[to] = wallNanos[from];
+        events[to] = events[from];
+        events[from] = null;
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * The belief kernel shared by the belief-state agents ({@link Agent3} to {@link Agent7}): a probability
+ * for each node that the target is there, and the updates the agents apply to it.
+ * <p>
+ * The belief lives in two buffers indexed by node from 1. Updates that produce a whole new
+ * distribution write into the spare buffer and swap, so no update ever allocates. Propagations
+ * accumulate the total in the same pass that scatters the values, leaving only a single multiply
+ * pass to normalize.
+ * </p>
+ * <p>
+ * Only the multiply passes, {@link #scale(double)} and the reweighting in
+ * {@link #reweightAndNormalize(int, double, double)}, are plain counted loops with no calls or
+ * branches in the body, the shape HotSpot's C2 compiler turns into SIMD code on its own. Sums are
+ * kept in loops of their own: Java fixes the order of floating-point additions, so C2 does not
+ * vectorize a reduction, and a sum in the same loop would keep the multiplies scalar too. The
+ * propagations branch on empty nodes and scatter through the graph's adjacency, so they stay scalar.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+class BeliefState {
+    private final int nodeCount; // Nodes are numbered from 1 to nodeCount
+    private double[] belief;     // Current belief, indexed by node
+    private double[] spare;      // Buffer the next propagation writes into
+
+    /**
+     * Constructs a uniform belief over the given number of nodes.
+     *
+     * @param nodeCount the number of nodes
+     */
+    BeliefState(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.belief = new double[nodeCount + 1];
+        this.spare = new double[nodeCount + 1];
+        fillUniform();
+    }
+
+    /**
+     * Makes every node equally likely.
+     */
+    void fillUniform() {
+        Arrays.fill(belief, 1, belief.length, 1.0 / nodeCount);
+    }
+
+    /**
+     * Returns the belief that the target is at the given node.
+     *
+     * @param node the node
+     * @return the belief
+     */
+    double get(int node) {
+        return belief[node];
+    }
+
+    /**
+     * Sets the belief of a single node, for example to zero after examining it.
+     *
+     * @param node  the node
+     * @param value the new belief
+     */
+    void set(int node, double value) {
+        belief[node] = value;
+    }
+
+    /**
+     * Puts all belief on one node, after the target has been seen there.
+     *
+     * @param node the node the target is at
+     */
+    void collapse(int node) {
+        Arrays.fill(belief, 0.0);
+        belief[node] = 1.0;
+    }
+
+    /**
+     * Updates the belief after the target was not found at the given node: the node is ruled out,
+     * and each of its neighbors gains the chance that the target just moved there, one over the
+     * neighbor's degree.
+     *
+     * @param env  the environment
+     * @param node the node that was examined
+     */
+    void observeMiss(Environment env, int node) {
+        belief[node] = 0;
+        int degree = env.getDegree(node);
+        for (int i = 0; i < degree; i++) {
+            int neighbor = env.getNeighbor(node, i);
+            belief[neighbor] += 1.0 / env.getDegree(neighbor);
+        }
+    }
+
+    /**
+     * Moves the belief one step of a random walk: every node passes its belief to its neighbors in
+     * equal shares.
+     *
+     * @param env the environment
+     * @return the total belief after the step
+     */
+    double propagate(Environment env) {
+        SimulationEvents.BeliefUpdateEvent event = new SimulationEvents.BeliefUpdateEvent();
+        event.begin();
+        double[] next = spare;
+        Arrays.fill(next, 0.0);
+        double total = 0.0;
+        for (int i = 1; i <= nodeCount; i++) {
+            int degree = env.getDegree(i);
+            if (degree == 0 || belief[i] == 0.0) {
+                continue;
+            }
+            double share = belief[i] / degree;
+            for (int k = 0; k < degree; k++) {
+                next[env.getNeighbor(i, k)] += share;
+            }
+            total += share * degree;
+        }
+        swap();
+        event.finish("propagate", nodeCount);
+        return total;
+    }
+
+    /**
+     * Pushes the belief through a learned transition model and normalizes it. The total is
+     * accumulated while the transitions are pushed, so normalizing is a single scaling pass.
+     *
+     * @param model the transition model
+     */
+    void propagateAndNormalize(TransitionModel model) {
+        SimulationEvents.BeliefUpdateEvent event = new SimulationEvents.BeliefUpdateEvent();
+        event.begin();
+        double[] next = spare;
+        Arrays.fill(next, 0.0);
+        double total = 0.0;
+        for (int i = 1; i <= nodeCount; i++) {
+            double mass = belief[i];
+            if (mass == 0.0) {
+                continue;
+            }
+            for (int slot = model.rowStart(i), end = model.rowEnd(i); slot < end; slot++) {
+                double moved = mass * model.probability(slot);
+                next[model.column(slot)] += moved;
+                total += moved;
+            }
+        }
+        swap();
+        normalize(total);
+        event.finish("propagate and normalize", nodeCount);
+    }
+
+    /**
+     * Reweights the belief by an observation that points at one node and normalizes it: that node
+     * is multiplied by {@code inside}, every other node by {@code outside}. The multiply and the
+     * sum of the total run as separate passes, so that the multiply can be vectorized.
+     *
+     * @param node    the node the observation points at
+     * @param inside  the likelihood of the observation if the target is at the node
+     * @param outside the likelihood of the observation if the target is elsewhere
+     */
+    void reweightAndNormalize(int node, double inside, double outside) {
+        SimulationEvents.BeliefUpdateEvent event = new SimulationEvents.BeliefUpdateEvent();
+        event.begin();
+        double[] b = belief;
+        double atNode = b[node];
+        double total = 0.0;
+        for (int i = 1; i <= nodeCount; i++) {
+            b[i] *= outside;
+        }
+        for (int i = 1; i <= nodeCount; i++) {
+            total += b[i];
+        }
+        b[node] = atNode * inside;
+        total += b[node] - atNode * outside;
+        normalize(total);
+        event.finish("reweight and normalize", nodeCount);
+    }
+
+    /**
+     * Returns the first node with the highest belief.
+     *
+     * @return the most likely node, or -1 if no node has any belief
+     */
+    int argmax() {
+        int best = -1;
+        double highest = 0.0;
+        for (int i = 1; i <= nodeCount; i++) {
+            if (belief[i] > highest) {
+                highest = belief[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a node with the highest belief, breaking ties uniformly at random.
+     * If no node has any belief, every node ties.
+     *
+     * @param rand the random number generator
+     * @return the chosen node
+     */
+    int argmaxRandomTie(RandomGenerator rand) {
+        // First pass: the highest belief and how many nodes share it
+        double highest = 0.0;
+        int ties = 0;
+        for (int i = 1; i <= nodeCount; i++) {
+            if (belief[i] > highest) {
+                highest = belief[i];
+                ties = 1;
+            } else if (belief[i] == highest) {
+                ties++;
+            }
+        }
+
+        // Second pass: the chosen one among the tied nodes, in node order
+        int chosen = rand.nextInt(ties);
+        for (int i = 1; i <= nodeCount; i++) {
+            if (belief[i] == highest && chosen-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No node holds the highest belief");
+    }
+
+    /**
+     * Divides every belief by the total, counting the normalization when metrics are on.
+     *
+     * @param total the total belief
+     */
+    private void normalize(double total) {
+        if (Metrics.ENABLED) {
+            Metrics.BELIEF_NORMALIZATIONS.increment();
+        }
+        scale(1.0 / total);
+    }
+
+    /**
+     * Multiplies every belief by a constant.
+     *
+     * @param factor the constant
+     */
+    private void scale(double factor) {
+        double[] b = belief;
+        for (int i = 1; i <= nodeCount; i++) {
+            b[i] *= factor;
+        }
+    }
+
+    /**
+     * Makes the spare buffer current.
+     */
+    private void swap() {
+        double[] previous = belief;
+        belief = spare;
+        spare = previous;
+    }
+}
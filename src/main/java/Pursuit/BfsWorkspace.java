@@ -0,0 +1,146 @@
+/**
+ * Reusable breadth-first search over an {@link Environment} that allocates nothing per search.
+ * <p>
+ * The workspace owns a primitive queue, a parent array and a visited array for the lifetime of its
+ * owner. Instead of clearing the visited array before every search, each search bumps an epoch and
+ * a node counts as visited only if its stamp equals the current epoch, so starting a search is O(1).
+ * Each node is enqueued at most once per search, so a queue of {@code nodeCount} slots never overflows.
+ * </p>
+ * <p>
+ * Neighbors are expanded in adjacency order and the first discovery of a node fixes its parent, which
+ * yields the same paths as {@link DistanceTable}. A workspace is not thread-safe; give every agent or
+ * thread its own.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+
+class BfsWorkspace {
+    private final Environment environment;
+    private final int[] queue;   // Nodes waiting to be expanded
+    private final int[] parent;  // Node each node was discovered from, valid only if stamped
+    private final int[] visited; // Epoch in which each node was last discovered
+    private int epoch = 0;
+
+    /**
+     * Constructs a workspace sized for the given environment.
+     *
+     * @param environment the environment to search
+     */
+    BfsWorkspace(Environment environment) {
+        this.environment = environment;
+        int nodeCount = environment.getNodeCount();
+        this.queue = new int[nodeCount];
+        this.parent = new int[nodeCount + 1];
+        this.visited = new int[nodeCount + 1];
+    }
+
+    /**
+     * Returns the first node on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the next node to move to, or {@code from} if it equals {@code to} or {@code to} is unreachable
+     */
+    int nextHop(int from, int to) {
+        if (from == to || !search(from, to)) {
+            return from;
+        }
+        // Walk back from the destination to the node right after the start
+        int next = to;
+        while (parent[next] != from) {
+            next = parent[next];
+        }
+        return next;
+    }
+
+    /**
+     * Returns the number of edges on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the hop distance, or -1 if the destination is unreachable
+     */
+    int distance(int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        if (!search(from, to)) {
+            return -1;
+        }
+        int distance = 0;
+        for (int node = to; node != from; node = parent[node]) {
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * Searches from one node until the destination is discovered.
+     *
+     * @param from the start node
+     * @param to   the destination node, different from the start
+     * @return true if the destination was reached
+     */
+    private boolean search(int from, int to) {
+        SimulationEvents.PathfindingEvent event = new SimulationEvents.PathfindingEvent();
+        event.begin();
+        boolean found = expand(from, to);
+        event.finish("BFS", from, to, found);
+        return found;
+    }
+
+    /**
+     * Expands nodes in breadth-first order until the destination is discovered.
+     *
+     * @param from the start node
+     * @param to   the destination node, different from the start
+     * @return true if the destination was reached
+     */
+    private boolean expand(int from, int to) {
+        int stamp = nextEpoch();
+        visited[from] = stamp;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int node = queue[head++];
+            int degree = environment.getDegree(node);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = environment.getNeighbor(node, i);
+                if (visited[neighbor] != stamp) {
+                    visited[neighbor] = stamp;
+                    parent[neighbor] = node;
+                    if (neighbor == to) {
+                        if (Metrics.ENABLED) {
+                            Metrics.BFS_EXPANSIONS.add(head);
+                        }
+                        return true;
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.BFS_EXPANSIONS.add(head);
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new search epoch, clearing the stamps only when the counter wraps around.
+     *
+     * @return the stamp of the new epoch
+     */
+    private int nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
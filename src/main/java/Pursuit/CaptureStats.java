@@ -0,0 +1,359 @@
+/**
+ * Streaming statistics of how long agents take to capture the target.
+ * <p>
+ * An episode's length is measured in rounds, the unit of {@link EpisodeBudget}: one round moves the
+ * target and then the agent. Rounds are the time axis of everything below, because agents that
+ * examine or wait instead of moving (Agent0 and Agent3 never step) still spend rounds, and a budget
+ * cuts every agent off after the same number of them. The agent's own step count is kept alongside
+ * as a second measure: its exact sum over the captured trials gives {@link #meanSteps()}.
+ * </p>
+ * <p>
+ * Each recorded trial updates, in constant time and memory:
+ * <ul>
+ *   <li>the count and the exact sum of the rounds, so the mean does not depend on the order in
+ *       which trials or collectors are combined;</li>
+ *   <li>Welford's running mean and sum of squared deviations, for the variance;</li>
+ *   <li>the minimum and maximum;</li>
+ *   <li>a log-bucketed histogram of fixed size, for the percentiles.</li>
+ * </ul>
+ * Values below 64 get a bucket each. Larger values share buckets: every power of two is split into
+ * 32 buckets of equal width, so a reported percentile is within about 3% of the true value, and
+ * {@value #BUCKETS} buckets cover every non-negative {@code long}. The histogram arrays only
+ * reach up to the highest bucket in use, growing when a larger value arrives, so a collector that
+ * has seen short episodes is small to create and quick to merge.
+ * </p>
+ * <p>
+ * Trials cut off by an {@link EpisodeBudget} are recorded separately as censored, with the rounds
+ * played so far in a histogram of their own. The mean, variance, extremes and percentiles describe
+ * the captured trials only; {@link #survival(long)} combines both histograms into a Kaplan-Meier
+ * estimate of how likely an episode is to still be running after a given number of rounds.
+ * </p>
+ * <p>
+ * Collectors are mergeable. Workers each fill their own and {@link #merge(CaptureStats)} combines
+ * them, using Chan's parallel update for the variance. Merging in a fixed order gives the same
+ * result whatever the number of threads.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+class CaptureStats {
+    private static final int SUB_BUCKET_BITS = 5; // Each power of two is split into 2^5 buckets
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = SUB_BUCKETS * (64 - SUB_BUCKET_BITS); // Enough for any non-negative long
+    private static final long[] NO_BUCKETS = {}; // Histogram of a collector that has seen nothing
+
+    private long count = 0;     // Captured trials
+    private long sum = 0;       // Exact sum of the recorded rounds
+    private long stepSum = 0;   // Exact sum of the agent steps of the captured trials
+    private double mean = 0.0;  // Welford's running mean
+    private double m2 = 0.0;    // Sum of squared deviations from the running mean
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long[] buckets = NO_BUCKETS; // Counts up to the highest bucket in use
+    private long censored = 0;
+    private long[] censoredBuckets = NO_BUCKETS; // Rounds reached by the censored trials
+
+    /**
+     * Records a trial that ended in a capture.
+     *
+     * @param rounds the rounds played up to and including the capture, not negative
+     * @param steps  the steps the agent took, not negative
+     */
+    void record(long rounds, long steps) {
+        if (rounds < 0 || steps < 0) {
+            throw new IllegalArgumentException("Round and step counts must not be negative, got "
+                    + rounds + " and " + steps);
+        }
+        count++;
+        sum += rounds;
+        stepSum += steps;
+        double delta = rounds - mean;
+        mean += delta / count;
+        m2 += delta * (rounds - mean);
+        min = Math.min(min, rounds);
+        max = Math.max(max, rounds);
+        buckets = increment(buckets, bucketOf(rounds));
+    }
+
+    /**
+     * Records a trial that was cut off before the capture.
+     *
+     * @param rounds the rounds played before the cut-off, not negative
+     */
+    void censor(long rounds) {
+        if (rounds < 0) {
+            throw new IllegalArgumentException("Round count must not be negative, got " + rounds);
+        }
+        censored++;
+        censoredBuckets = increment(censoredBuckets, bucketOf(rounds));
+    }
+
+    /**
+     * Adds everything recorded by another collector to this one.
+     *
+     * @param other the collector to merge; left unchanged
+     */
+    void merge(CaptureStats other) {
+        censored += other.censored;
+        censoredBuckets = add(censoredBuckets, other.censoredBuckets);
+        if (other.count == 0) {
+            return;
+        }
+        long combined = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+        mean += delta * other.count / combined;
+        count = combined;
+        sum += other.sum;
+        stepSum += other.stepSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        buckets = add(buckets, other.buckets);
+    }
+
+    /**
+     * Returns the number of recorded trials.
+     *
+     * @return the trial count
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of trials cut off before the capture.
+     *
+     * @return the censored trial count
+     */
+    long censored() {
+        return censored;
+    }
+
+    /**
+     * Returns the exact sum of the rounds of the captured trials.
+     *
+     * @return the total rounds
+     */
+    long sum() {
+        return sum;
+    }
+
+    /**
+     * Returns the average number of rounds to the capture.
+     *
+     * @return the mean, or NaN if nothing was recorded
+     */
+    double mean() {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    /**
+     * Returns the average number of steps the agent took in the captured trials.
+     *
+     * @return the mean, or NaN if nothing was recorded
+     */
+    double meanSteps() {
+        return count == 0 ? Double.NaN : (double) stepSum / count;
+    }
+
+    /**
+     * Returns the sample variance of the number of rounds.
+     *
+     * @return the variance, or NaN if fewer than two trials were recorded
+     */
+    double variance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * Returns the sample standard deviation of the number of rounds.
+     *
+     * @return the standard deviation, or NaN if fewer than two trials were recorded
+     */
+    double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Returns the fewest rounds of any recorded trial.
+     *
+     * @return the minimum, or {@link Long#MAX_VALUE} if nothing was recorded
+     */
+    long min() {
+        return min;
+    }
+
+    /**
+     * Returns the most rounds of any recorded trial.
+     *
+     * @return the maximum, or {@link Long#MIN_VALUE} if nothing was recorded
+     */
+    long max() {
+        return max;
+    }
+
+    /**
+     * Returns an upper estimate of the given percentile of the number of rounds: the highest value
+     * of the bucket that holds it, clamped to the observed range.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimated percentile, or -1 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the Kaplan-Meier estimate of the probability that an episode has not ended in a capture
+     * after the given number of rounds, counting both captured and censored trials. Rounds are grouped
+     * by histogram bucket, so the estimate is exact below 64 rounds and within a bucket width above.
+     *
+     * @param rounds the number of rounds
+     * @return the estimated survival probability, or NaN if nothing was recorded
+     */
+    double survival(long rounds) {
+        long atRisk = count + censored;
+        if (atRisk == 0) {
+            return Double.NaN;
+        }
+        double survival = 1.0;
+        int last = bucketOf(Math.max(0, rounds));
+        for (int i = 0; i <= last && atRisk > 0; i++) {
+            long captured = countAt(buckets, i);
+            if (captured > 0) {
+                survival *= 1.0 - (double) captured / atRisk;
+            }
+            atRisk -= captured + countAt(censoredBuckets, i);
+        }
+        return survival;
+    }
+
+    /**
+     * Returns the Kaplan-Meier median: the fewest rounds after which at most half the episodes are
+     * estimated to still be running.
+     *
+     * @return the median in rounds, or -1 if the estimate never falls to one half
+     */
+    long survivalMedian() {
+        long atRisk = count + censored;
+        double survival = 1.0;
+        int end = Math.max(buckets.length, censoredBuckets.length);
+        for (int i = 0; i < end && atRisk > 0; i++) {
+            long captured = countAt(buckets, i);
+            if (captured > 0) {
+                survival *= 1.0 - (double) captured / atRisk;
+                if (survival <= 0.5) {
+                    return highestValueOf(i);
+                }
+            }
+            atRisk -= captured + countAt(censoredBuckets, i);
+        }
+        return -1;
+    }
+
+    /**
+     * Formats the distribution of the rounds to the capture on one line, followed by the censored
+     * trials and the Kaplan-Meier median when there are any.
+     *
+     * @return the summary
+     */
+    String summary() {
+        String summary = String.format(Locale.ROOT,
+                "rounds mean %.2f, sd %.2f, min %d, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d", mean(),
+                standardDeviation(), min, percentile(50), percentile(90), percentile(99), percentile(99.9), max);
+        if (censored > 0) {
+            long median = survivalMedian();
+            summary += String.format(Locale.ROOT, ", censored %d (%.1f%%), survival median %s", censored,
+                    100.0 * censored / (count + censored), median < 0 ? "not reached" : Long.toString(median));
+        }
+        return summary;
+    }
+
+    /**
+     * Adds one to a histogram bucket, growing the histogram if it does not reach the bucket yet.
+     *
+     * @param counts the histogram
+     * @param bucket the bucket index
+     * @return the histogram, which is a new array if it had to grow
+     */
+    private static long[] increment(long[] counts, int bucket) {
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.min(BUCKETS, Math.max(bucket + 1, Math.max(2 * SUB_BUCKETS, 2 * counts.length))));
+        }
+        counts[bucket]++;
+        return counts;
+    }
+
+    /**
+     * Adds one histogram to another, looping only over the buckets the added histogram reaches.
+     *
+     * @param counts the histogram to add to
+     * @param other  the histogram to add; left unchanged
+     * @return the sum, which is a new array if the first histogram had to grow
+     */
+    private static long[] add(long[] counts, long[] other) {
+        if (other.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.length);
+        }
+        for (int i = 0; i < other.length; i++) {
+            counts[i] += other[i];
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the count of a histogram bucket, which is zero beyond the highest bucket in use.
+     *
+     * @param counts the histogram
+     * @param bucket the bucket index
+     * @return the count
+     */
+    private static long countAt(long[] counts, int bucket) {
+        return bucket < counts.length ? counts[bucket] : 0;
+    }
+
+    /**
+     * Returns the histogram bucket of a value.
+     *
+     * @param value the value, not negative
+     * @return the bucket index
+     */
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * shift + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value that falls in a histogram bucket.
+     *
+     * @param bucket the bucket index
+     * @return the largest value of the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket - SUB_BUCKETS * shift) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * A lock-free histogram of non-negative values, such as durations in nanoseconds, that many threads
+ * can record into at once.
+ * <p>
+ * Values are bucketed like {@link CaptureStats}: exactly below 64, then 32 buckets per power of two.
+ * Each bucket is a slot of an {@link AtomicLongArray}, incremented with a single atomic add, and
+ * the count and sum are striped {@link LongAdder}s, so recording never blocks and contended threads
+ * rarely touch the same cache line for long.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class ConcurrentHistogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(CaptureStats.BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value. Negative values, such as a clock step backwards, are recorded as zero.
+     *
+     * @param value the value
+     */
+    void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the same value several times, such as one share of a duration amortized over many
+     * episodes. Negative values are recorded as zero.
+     *
+     * @param value the value
+     * @param times the number of times to record it
+     */
+    void record(long value, long times) {
+        long clamped = Math.max(0, value);
+        buckets.addAndGet(CaptureStats.bucketOf(clamped), times);
+        count.add(times);
+        sum.add(clamped * times);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum
+     */
+    long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper estimate of the given percentile of the recorded values. If other threads are
+     * still recording, the result may include some of their values and not others.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the highest value of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(max(), CaptureStats.highestValueOf(i));
+            }
+        }
+        return max();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Reusable weighted shortest-path search over an {@link Environment}, allocating nothing per search.
+ * <p>
+ * Dijkstra's algorithm runs on an {@link IndexedHeap} over primitive arrays and stops as soon as the
+ * goal is settled, so a query costs O(E log V) in the worst case and usually far less. Distances are
+ * valid only for nodes stamped with the current search epoch, so no array is cleared between searches.
+ * A workspace is not thread-safe; give every agent or thread its own.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+
+class DijkstraWorkspace {
+    private final Environment environment;
+    private final IndexedHeap heap;
+    private final double[] distance; // Best known distance of each node, valid only if stamped
+    private final int[] parent;      // Node each node was last relaxed from, valid only if stamped
+    private final int[] reached;     // Epoch in which each node was first reached
+    private int epoch = 0;
+
+    /**
+     * Constructs a workspace sized for the given environment.
+     *
+     * @param environment the environment to search
+     */
+    DijkstraWorkspace(Environment environment) {
+        this.environment = environment;
+        int nodeCount = environment.getNodeCount();
+        this.heap = new IndexedHeap(nodeCount);
+        this.distance = new double[nodeCount + 1];
+        this.parent = new int[nodeCount + 1];
+        this.reached = new int[nodeCount + 1];
+    }
+
+    /**
+     * Returns the first node on a cheapest path between two nodes.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the next node to move to, or {@code from} if it equals {@code to} or {@code to} is unreachable
+     */
+    int nextHop(int from, int to, EdgeWeight weight) {
+        if (from == to || Double.isInfinite(search(from, to, weight))) {
+            return from;
+        }
+        // Walk back from the destination to the node right after the start
+        int next = to;
+        while (parent[next] != from) {
+            next = parent[next];
+        }
+        return next;
+    }
+
+    /**
+     * Returns the cost of a cheapest path between two nodes.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the path cost, or {@link Double#POSITIVE_INFINITY} if the destination is unreachable
+     */
+    double distance(int from, int to, EdgeWeight weight) {
+        return from == to ? 0.0 : search(from, to, weight);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from one node until the destination is settled.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the cost of the cheapest path, or {@link Double#POSITIVE_INFINITY} if unreachable
+     */
+    private double search(int from, int to, EdgeWeight weight) {
+        SimulationEvents.PathfindingEvent event = new SimulationEvents.PathfindingEvent();
+        event.begin();
+        double cost = settle(from, to, weight);
+        event.finish("Dijkstra", from, to, cost != Double.POSITIVE_INFINITY);
+        return cost;
+    }
+
+    /**
+     * Settles nodes in order of distance until the destination is settled.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the cost of the cheapest path, or {@link Double#POSITIVE_INFINITY} if unreachable
+     */
+    private double settle(int from, int to, EdgeWeight weight) {
+        int stamp = nextEpoch();
+        heap.clear();
+        reached[from] = stamp;
+        distance[from] = 0.0;
+        heap.push(from, 0.0);
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            if (node == to) {
+                return distance[node];
+            }
+            double base = distance[node];
+            int degree = environment.getDegree(node);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = environment.getNeighbor(node, i);
+                double newDist = base + weight.weight(node, neighbor);
+                if (reached[neighbor] != stamp || newDist < distance[neighbor]) {
+                    reached[neighbor] = stamp;
+                    distance[neighbor] = newDist;
+                    parent[neighbor] = node;
+                    heap.push(neighbor, newDist);
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Starts a new search epoch, clearing the stamps only when the counter wraps around.
+     *
+     * @return the stamp of the new epoch
+     */
+    private int nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * All-pairs hop distances and next hops for a small or medium {@link Environment}.
+ * <p>
+ * The table is filled by one breadth-first search per source node, with sources processed in
+ * parallel. For every pair {@code (from, to)} it stores the number of edges on a shortest path in a
+ * {@code short}, and the first step of that path as a {@code byte} index into the neighbor run of
+ * {@code from}. Each search visits neighbors in adjacency order, so the stored next hop is exactly
+ * the one a breadth-first search started at {@code from} would return.
+ * </p>
+ * <p>
+ * Memory is {@code 3 * n * n} bytes, which is why the table is only built for graphs of at most
+ * {@link #MAX_NODES} nodes whose degrees fit in a byte. The table is immutable once built.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+class DistanceTable {
+    // Largest graph the table is built for (about 50 MB at the default of 4096 nodes)
+    static final int MAX_NODES = Integer.getInteger("pursuit.distanceTable.maxNodes", 4096);
+
+    private static final int SOURCES_PER_TASK = 64; // Sources searched by one parallel task
+
+    private final Environment environment;
+    private final int nodeCount;
+    private final short[] distances; // distances[(from - 1) * nodeCount + (to - 1)], -1 if unreachable
+    private final byte[] hops;       // Neighbor index of the first step from 'from' towards 'to', -1 if none
+
+    /**
+     * Returns whether a table can be built for the given environment.
+     *
+     * @param environment the environment
+     * @return true if the environment is small enough and its degrees fit in a byte
+     */
+    static boolean fits(Environment environment) {
+        return environment.getNodeCount() <= Math.min(MAX_NODES, Short.MAX_VALUE)
+                && environment.getMaxDegree() <= Byte.MAX_VALUE;
+    }
+
+    /**
+     * Builds the table for the given environment.
+     *
+     * @param environment the environment, which must satisfy {@link #fits(Environment)}
+     */
+    DistanceTable(Environment environment) {
+        SimulationEvents.EnvironmentBuildEvent event = new SimulationEvents.EnvironmentBuildEvent();
+        event.begin();
+        this.environment = environment;
+        this.nodeCount = environment.getNodeCount();
+        this.distances = new short[nodeCount * nodeCount];
+        this.hops = new byte[nodeCount * nodeCount];
+        Arrays.fill(distances, (short) -1);
+        Arrays.fill(hops, (byte) -1);
+
+        // Each task searches a block of sources with its own queue; rows never overlap
+        int tasks = (nodeCount + SOURCES_PER_TASK - 1) / SOURCES_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int[] queue = new int[nodeCount];
+            int last = Math.min(nodeCount, (task + 1) * SOURCES_PER_TASK);
+            for (int source = task * SOURCES_PER_TASK + 1; source <= last; source++) {
+                searchFrom(source, queue);
+            }
+        });
+        event.finish("distance table", nodeCount);
+    }
+
+    /**
+     * Fills the row of the given source with a breadth-first search.
+     *
+     * @param source the source node
+     * @param queue  scratch space for the search queue
+     */
+    private void searchFrom(int source, int[] queue) {
+        int row = (source - 1) * nodeCount;
+        distances[row + source - 1] = 0;
+
+        // The first ring of the search records which neighbor of the source leads to each node
+        int head = 0;
+        int tail = 0;
+        int sourceDegree = environment.getDegree(source);
+        for (int i = 0; i < sourceDegree; i++) {
+            int neighbor = environment.getNeighbor(source, i);
+            if (distances[row + neighbor - 1] == -1) {
+                distances[row + neighbor - 1] = 1;
+                hops[row + neighbor - 1] = (byte) i;
+                queue[tail++] = neighbor;
+            }
+        }
+
+        // Every other node inherits the first step of the node it was discovered from
+        while (head < tail) {
+            int node = queue[head++];
+            short distance = (short) (distances[row + node - 1] + 1);
+            byte hop = hops[row + node - 1];
+            int degree = environment.getDegree(node);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = environment.getNeighbor(node, i);
+                if (distances[row + neighbor - 1] == -1) {
+                    distances[row + neighbor - 1] = distance;
+                    hops[row + neighbor - 1] = hop;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of edges on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the hop distance, or -1 if the destination is unreachable
+     */
+    int distance(int from, int to) {
+        return distances[(from - 1) * nodeCount + (to - 1)];
+    }
+
+    /**
+     * Returns the first node on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the next node to move to, or {@code from} if it equals {@code to} or {@code to} is unreachable
+     */
+    int nextHop(int from, int to) {
+        int hop = hops[(from - 1) * nodeCount + (to - 1)];
+        return hop < 0 ? from : environment.getNeighbor(from, hop);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * A growable list of undirected edges used while a graph is being built.
+ * <p>
+ * Edges are kept in two parallel primitive arrays so that construction does not box node ids.
+ * Once all edges have been added, the list is handed to {@link Environment}, which compresses it
+ * into its immutable adjacency layout.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+
+class EdgeList {
+    private final int nodeCount; // Nodes are numbered from 1 to nodeCount
+    private int[] from;
+    private int[] to;
+    private int size = 0;
+
+    /**
+     * Constructs an empty edge list for a graph with the given number of nodes.
+     *
+     * @param nodeCount        the number of nodes in the graph
+     * @param expectedEdges    the number of edges to reserve space for
+     */
+    public EdgeList(int nodeCount, int expectedEdges) {
+        this.nodeCount = nodeCount;
+        this.from = new int[Math.max(expectedEdges, 1)];
+        this.to = new int[Math.max(expectedEdges, 1)];
+    }
+
+    /**
+     * Adds an undirected edge between the given nodes.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     */
+    public void add(int node1, int node2) {
+        if (size == from.length) {
+            from = Arrays.copyOf(from, size * 2);
+            to = Arrays.copyOf(to, size * 2);
+        }
+        from[size] = node1;
+        to[size] = node2;
+        size++;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of edges added so far.
+     *
+     * @return the edge count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the first endpoint of the edge at the given index.
+     *
+     * @param index the edge index
+     * @return the first endpoint
+     */
+    public int from(int index) {
+        return from[index];
+    }
+
+    /**
+     * Returns the second endpoint of the edge at the given index.
+     *
+     * @param index the edge index
+     * @return the second endpoint
+     */
+    public int to(int index) {
+        return to[index];
+    }
+}
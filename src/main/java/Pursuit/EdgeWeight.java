@@ -0,0 +1,24 @@
+/**
+ * Assigns a non-negative cost to moving along an edge of the {@link Environment}.
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+@FunctionalInterface
+interface EdgeWeight {
+    /**
+     * Weights an edge by the difference between its endpoint numbers, the distance measure the
+     * heuristic agents use.
+     */
+    EdgeWeight LABEL_DISTANCE = (from, to) -> Math.abs(from - to);
+
+    /**
+     * Returns the cost of moving from one node to an adjacent node.
+     *
+     * @param from the node the edge starts at
+     * @param to   the node the edge ends at
+     * @return the non-negative cost of the edge
+     */
+    double weight(int from, int to);
+}
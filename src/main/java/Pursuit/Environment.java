@@ -2,67 +2,313 @@
  * Represents the environment in which agents and targets operate.
  * The environment is modeled as an undirected graph with nodes and edges.
  * <p>
- * The graph is initialized with a loop of 40 nodes, and ten additional random edges are added.
- * Each node can have at most three edges.
+ * The graph is initialized with a loop of nodes (40 by default), and one additional random edge is
+ * added for every four nodes. Each node can have at most three edges. Other families of graphs are
+ * built by {@link GraphGenerators} and passed in as an {@link EdgeList}.
+ * </p>
+ * <p>
+ * The adjacency is stored in compressed sparse row (CSR) form: the neighbors of node {@code i} occupy
+ * {@code neighbors[offsets[i]]} to {@code neighbors[offsets[i + 1] - 1]}. Neighbors are read through
+ * {@link #getDegree(int)} and {@link #getNeighbor(int, int)}, so lookups never box or allocate.
+ * An environment is immutable once constructed and can be shared between threads without copying.
+ * </p>
+ * <p>
+ * The three arrays are held as {@link IntBuffer}s and only ever read with absolute gets. A generated
+ * graph wraps ordinary heap arrays, while a graph loaded by {@link GraphFiles#map(Path)} reads its
+ * adjacency straight out of a memory-mapped file, so opening it costs page faults rather than parsing.
+ * A mapped graph also carries the checksum verified from its file header, so its
+ * {@linkplain GraphFiles#fingerprint(Environment) fingerprint} costs nothing; other graphs compute
+ * theirs once, on first use.
+ * </p>
+ * <p>
+ * Shortest-path queries go through {@link #distance(int, int)} and {@link #nextHop(int, int)}. For
+ * graphs small enough for a {@link DistanceTable}, the table is built on first use and every query
+ * becomes a lookup; larger graphs answer each query with a breadth-first search in a per-thread
+ * {@link BfsWorkspace}. Weighted queries ({@link #weightedNextHop(int, int, EdgeWeight)}) run Dijkstra's
+ * algorithm in a per-thread {@link DijkstraWorkspace}.
  * </p>
  * @author Robert Jean Pierre
  */
 package Pursuit;
 
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 
 class Environment {
-    // Graph represented as a map of nodes to their neighbors
-    private Map<Integer, List<Integer>> graph = new HashMap<>();
+    private final int nodeCount;   // Nodes are numbered from 1 to nodeCount
+    private final IntBuffer offsets;   // Start of each node's neighbor run, indexed by node
+    private final IntBuffer neighbors; // Concatenated neighbor runs
+    private final IntBuffer degree;    // Precomputed offsets[i + 1] - offsets[i]
+    private final int maxDegree;   // Largest entry of degree
+    private volatile long checksum = -1; // CRC-32C of the adjacency as GraphFiles stores it, -1 until known
+
+    private volatile DistanceTable distanceTable; // All-pairs table, built on first use
+    private final ThreadLocal<BfsWorkspace> searchWorkspace = // Per-thread search state for large graphs
+            ThreadLocal.withInitial(() -> new BfsWorkspace(this));
+    private final ThreadLocal<DijkstraWorkspace> weightedWorkspace = // Per-thread weighted search state
+            ThreadLocal.withInitial(() -> new DijkstraWorkspace(this));
 
     /**
      * Constructs an Environment with a loop of 40 nodes and ten additional random edges.
      * Ensures that each node has at most three edges.
      */
     public Environment() {
-        // Create a loop of nodes
-        for (int i = 1; i <= 40; i++) {
-            addEdge(i, i % 40 + 1);
+        this(40);
+    }
+
+    /**
+     * Constructs an Environment with a loop of the given number of nodes and one additional
+     * random edge for every four nodes. Ensures that each node has at most three edges.
+     *
+     * @param nodeCount the number of nodes in the graph, at least 3
+     * @throws IllegalArgumentException if the node count is too small to form a loop
+     */
+    public Environment(int nodeCount) {
+        this(nodeCount, new SplittableRandom());
+    }
+
+    /**
+     * Constructs an Environment like {@link #Environment(int)}, drawing the additional edges from the
+     * given random stream so that the same seed always yields the same graph.
+     *
+     * @param nodeCount the number of nodes in the graph, at least 3
+     * @param rand      the random number generator used to pick the extra edges
+     * @throws IllegalArgumentException if the node count is too small to form a loop
+     */
+    public Environment(int nodeCount, RandomGenerator rand) {
+        this(GraphGenerators.ringWithChords(nodeCount, nodeCount / 4, rand));
+    }
+
+    /**
+     * Constructs an Environment from the given edge list.
+     *
+     * @param edges the undirected edges of the graph
+     */
+    Environment(EdgeList edges) {
+        SimulationEvents.EnvironmentBuildEvent event = new SimulationEvents.EnvironmentBuildEvent();
+        event.begin();
+        nodeCount = edges.getNodeCount();
+        int[] offsets = new int[nodeCount + 2];
+        int[] degree = new int[nodeCount + 1];
+
+        // Count the degree of every node
+        for (int e = 0; e < edges.size(); e++) {
+            degree[edges.from(e)]++;
+            degree[edges.to(e)]++;
+        }
+        int largest = 0;
+        for (int i = 1; i <= nodeCount; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+            largest = Math.max(largest, degree[i]);
         }
+        maxDegree = largest;
 
-        // Add ten additional edges
-        Random rand = new Random();
-        int addedEdges = 0;
-        while (addedEdges < 10) {
-            int node1 = rand.nextInt(40) + 1;
-            int node2 = rand.nextInt(40) + 1;
-            if (node1 != node2 && !graph.get(node1).contains(node2)
-                    && graph.get(node1).size() < 3 && graph.get(node2).size() < 3) {
-                addEdge(node1, node2);
-                addedEdges++;
-            }
+        // Scatter both directions of every edge, keeping insertion order within each run
+        int[] neighbors = new int[offsets[nodeCount + 1]];
+        int[] fill = Arrays.copyOf(offsets, nodeCount + 1);
+        for (int e = 0; e < edges.size(); e++) {
+            int node1 = edges.from(e);
+            int node2 = edges.to(e);
+            neighbors[fill[node1]++] = node2;
+            neighbors[fill[node2]++] = node1;
         }
+        this.offsets = IntBuffer.wrap(offsets);
+        this.degree = IntBuffer.wrap(degree);
+        this.neighbors = IntBuffer.wrap(neighbors);
+        event.finish("adjacency", nodeCount);
     }
 
     /**
-     * Adds an edge between the given nodes in the graph.
-     * If the nodes do not exist, they are added to the graph.
+     * Constructs an Environment over adjacency that is already in CSR form, such as the views of a
+     * memory-mapped graph file. The buffers are used as they are, without copying, and must not be
+     * modified afterwards.
      *
-     * @param node1 the first node
-     * @param node2 the second node
-     * @implNote This method is private and used internally to construct the graph.
+     * @param nodeCount the number of nodes in the graph
+     * @param maxDegree the largest degree of any node
+     * @param offsets   the start of each node's neighbor run, {@code nodeCount + 2} entries
+     * @param degree    the degree of each node, {@code nodeCount + 1} entries
+     * @param neighbors the concatenated neighbor runs
+     * @param checksum  the already verified {@link GraphFiles#checksum(Environment) checksum} of the
+     *                  adjacency, or -1 if it is not known
      */
-    private void addEdge(int node1, int node2) {
-        graph.putIfAbsent(node1, new ArrayList<>());
-        graph.putIfAbsent(node2, new ArrayList<>());
-        graph.get(node1).add(node2);
-        graph.get(node2).add(node1);
+    Environment(int nodeCount, int maxDegree, IntBuffer offsets, IntBuffer degree, IntBuffer neighbors,
+                long checksum) {
+        this.nodeCount = nodeCount;
+        this.maxDegree = maxDegree;
+        this.offsets = offsets;
+        this.degree = degree;
+        this.neighbors = neighbors;
+        this.checksum = checksum;
     }
 
     /**
-     * Returns the neighbors of the given node in the graph.
-     * If the node does not exist, returns an empty list.
+     * Returns the number of nodes in the graph. Nodes are numbered from 1 to this count.
      *
-     * @param node the node whose neighbors are to be returned
-     * @return a list of neighboring nodes
+     * @return the node count
      */
-    public List<Integer> getNeighbors(int node) {
-        return graph.getOrDefault(node, new ArrayList<>());
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of neighbors of the given node.
+     * If the node does not exist, returns zero.
+     *
+     * @param node the node whose degree is to be returned
+     * @return the number of neighboring nodes
+     */
+    public int getDegree(int node) {
+        if (node < 1 || node > nodeCount) {
+            return 0;
+        }
+        return degree.get(node);
+    }
+
+    /**
+     * Returns the neighbor at the given position in the node's neighbor run.
+     *
+     * @param node  the node whose neighbor is to be returned
+     * @param index the position of the neighbor, from 0 to {@code getDegree(node) - 1}
+     * @return the neighboring node
+     */
+    public int getNeighbor(int node, int index) {
+        return neighbors.get(offsets.get(node) + index);
+    }
+
+    /**
+     * Passes each neighbor of the given node to the action, in adjacency order.
+     * If the node does not exist, the action is never called.
+     *
+     * @param node   the node whose neighbors are to be visited
+     * @param action the action to perform on each neighbor
+     */
+    public void forEachNeighbor(int node, IntConsumer action) {
+        if (node < 1 || node > nodeCount) {
+            return;
+        }
+        for (int i = offsets.get(node), end = offsets.get(node + 1); i < end; i++) {
+            action.accept(neighbors.get(i));
+        }
+    }
+
+    /**
+     * Returns the number of neighbor entries over all nodes, twice the number of undirected edges.
+     *
+     * @return the total length of the neighbor runs
+     */
+    public int getNeighborCount() {
+        return offsets.get(nodeCount + 1);
+    }
+
+    /**
+     * Returns the largest number of neighbors of any node.
+     *
+     * @return the maximum degree
+     */
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Returns the checksum of the adjacency if it is already known, from a file header or from an
+     * earlier computation.
+     *
+     * @return the checksum, or -1 if it has not been computed yet
+     */
+    long knownChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Remembers the checksum of the adjacency, so that it is computed at most once.
+     *
+     * @param checksum the checksum computed by {@link GraphFiles#checksum(Environment)}
+     */
+    void rememberChecksum(long checksum) {
+        this.checksum = checksum;
+    }
+
+    /**
+     * Returns whether shortest-path queries are answered from a precomputed {@link DistanceTable}.
+     *
+     * @return true if the graph is small enough for an all-pairs table
+     */
+    public boolean hasDistanceTable() {
+        return DistanceTable.fits(this);
+    }
+
+    /**
+     * Returns the number of edges on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the hop distance, or -1 if the destination is unreachable
+     */
+    public int distance(int from, int to) {
+        if (hasDistanceTable()) {
+            return distanceTable().distance(from, to);
+        }
+        return searchWorkspace.get().distance(from, to);
+    }
+
+    /**
+     * Returns the first node on a shortest path between two nodes.
+     *
+     * @param from the start node
+     * @param to   the destination node
+     * @return the next node to move to, or {@code from} if it equals {@code to} or {@code to} is unreachable
+     */
+    public int nextHop(int from, int to) {
+        if (hasDistanceTable()) {
+            return distanceTable().nextHop(from, to);
+        }
+        return searchWorkspace.get().nextHop(from, to);
+    }
+
+    /**
+     * Returns the cost of a cheapest path between two nodes under the given edge weights.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the path cost, or {@link Double#POSITIVE_INFINITY} if the destination is unreachable
+     */
+    public double weightedDistance(int from, int to, EdgeWeight weight) {
+        return weightedWorkspace.get().distance(from, to, weight);
+    }
+
+    /**
+     * Returns the first node on a cheapest path between two nodes under the given edge weights.
+     *
+     * @param from   the start node
+     * @param to     the destination node
+     * @param weight the cost of each edge
+     * @return the next node to move to, or {@code from} if it equals {@code to} or {@code to} is unreachable
+     */
+    public int weightedNextHop(int from, int to, EdgeWeight weight) {
+        return weightedWorkspace.get().nextHop(from, to, weight);
+    }
+
+    /**
+     * Returns the all-pairs table, building it on first use.
+     *
+     * @return the distance table
+     */
+    private DistanceTable distanceTable() {
+        DistanceTable table = distanceTable;
+        if (table == null) {
+            synchronized (this) {
+                table = distanceTable;
+                if (table == null) {
+                    table = new DistanceTable(this);
+                    distanceTable = table;
+                }
+            }
+        }
+        return table;
     }
 
 }
@@ -0,0 +1,72 @@
+/**
+ * Upper bounds on how long a single episode may run before it is cut off.
+ * <p>
+ * An episode is limited both in rounds (one target move and one agent turn each) and in wall-clock
+ * time. An episode that reaches either limit before the capture is stopped and recorded as
+ * censored in its {@link CaptureStats}, so no single unlucky trial can stall a run. The round limit
+ * is deterministic; the time limit depends on the machine, so runs that hit it are no longer exactly
+ * reproducible.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.concurrent.TimeUnit;
+
+class EpisodeBudget {
+    static final EpisodeBudget UNLIMITED = new EpisodeBudget(Long.MAX_VALUE, Long.MAX_VALUE);
+    static final int CLOCK_CHECK_INTERVAL = 1024; // Rounds between two reads of the clock
+
+    private final long maxRounds; // Long.MAX_VALUE when unlimited
+    private final long maxNanos;  // Long.MAX_VALUE when unlimited
+
+    /**
+     * Constructs a budget from the given limits.
+     *
+     * @param maxRounds the most rounds an episode may run, or 0 for no limit
+     * @param maxMillis the most wall-clock milliseconds an episode may run, or 0 for no limit
+     * @return the budget
+     * @throws IllegalArgumentException if a limit is negative
+     */
+    static EpisodeBudget of(long maxRounds, long maxMillis) {
+        if (maxRounds < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("Episode limits must not be negative, got " + maxRounds + " rounds and " + maxMillis + " ms");
+        }
+        return new EpisodeBudget(maxRounds == 0 ? Long.MAX_VALUE : maxRounds,
+                maxMillis == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxMillis));
+    }
+
+    private EpisodeBudget(long maxRounds, long maxNanos) {
+        this.maxRounds = maxRounds;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Returns the most rounds an episode may run.
+     *
+     * @return the round limit, {@link Long#MAX_VALUE} if unlimited
+     */
+    long maxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Returns whether episodes are limited in wall-clock time.
+     *
+     * @return true if there is a time limit
+     */
+    boolean isTimed() {
+        return maxNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the clock reading after which an episode started now must stop.
+     *
+     * @param startNanos the {@link System#nanoTime()} reading when the episode started
+     * @return the deadline, or {@link Long#MAX_VALUE} if there is no time limit
+     */
+    long deadline(long startNanos) {
+        return isTimed() ? startNanos + maxNanos : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,455 @@
+/**
+ * Reads and writes graph files, so that agents can run on real networks instead of generated loops.
+ * <p>
+ * Two formats are supported. A plain edge list has one edge per line, given as two non-negative
+ * integer node ids separated by whitespace or a comma; anything after the second id is ignored,
+ * and blank lines and lines starting with {@code #} or {@code %} are skipped. Node ids are renumbered
+ * from 1 in ascending order, so a graph numbered from 0 or 1 keeps its order. Self-loops are dropped,
+ * and an edge that appears more than once, in either direction, is kept once. A file that leaves no
+ * edge at all is rejected, since no agent or target could move on it.
+ * </p>
+ * <p>
+ * The binary CSR format stores an {@link Environment}'s adjacency exactly as it is held in memory:
+ * a 32-byte header followed by the offsets, degree and neighbor arrays, all little-endian.
+ * {@link #map(Path)} maps the three arrays read-only with {@link FileChannel#map} and hands the
+ * views to the environment without copying them. Opening a graph then costs one sequential pass
+ * over the pages rather than parsing, and several JVMs on the same host share the file's pages
+ * instead of each holding its own copy. Each array must fit in a single mapping of at most 2 GB.
+ * </p>
+ * <p>
+ * The header carries the CRC-32C {@linkplain #checksum(Environment) checksum} of the three arrays,
+ * which is verified whenever the file is mapped. The checksum depends only on the adjacency, so it
+ * also serves as the graph's {@linkplain #fingerprint(Environment) fingerprint}: equal graphs have
+ * equal fingerprints, whether generated, parsed or mapped. A mapped environment keeps the verified
+ * checksum, and any other environment keeps its checksum once computed or written, so asking for a
+ * fingerprint never makes a second pass over the adjacency.
+ * </p>
+ * <p>
+ * A 32-bit checksum catches corruption but is too short to tell graphs apart reliably, so anything
+ * that identifies a graph by content, such as the {@link SnapshotStore}, uses its
+ * {@linkplain #digest(Environment) digest} instead: the SHA-256 of the node count, the neighbor count
+ * and the three arrays.
+ * </p>
+ * <p>
+ * Run this class to convert an edge list into the binary format:
+ * {@code java -cp ... Pursuit.GraphFiles edges.txt graph.csr}.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+class GraphFiles {
+    static final String BINARY_SUFFIX = ".csr"; // File name suffix of the binary format
+
+    private static final int MAGIC = 0x52534350;  // "PCSR" in little-endian byte order
+    private static final int VERSION = 2;         // Layout version written to the header
+    private static final int HEADER_BYTES = 32;   // Header size, keeps the arrays 8-byte aligned
+    private static final int WRITE_BUFFER = 1 << 16; // Bytes written to the channel at a time
+
+    private GraphFiles() {
+        // Static helpers only
+    }
+
+    /**
+     * Converts an edge-list file into the binary CSR format.
+     *
+     * @param args the edge-list file and the binary file to write
+     * @throws IOException if either file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GraphFiles <edge-list> <output" + BINARY_SUFFIX + ">");
+            System.exit(2);
+        }
+        Environment environment = new Environment(readEdgeList(Path.of(args[0])));
+        write(environment, Path.of(args[1]));
+        System.out.println(environment.getNodeCount() + " nodes, "
+                + environment.getNeighborCount() / 2 + " edges written to " + args[1]);
+    }
+
+    /**
+     * Loads an environment from a file, mapping it if its name ends in {@value #BINARY_SUFFIX} and
+     * parsing it as an edge list otherwise.
+     *
+     * @param file the graph file
+     * @return the environment
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    static Environment load(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BINARY_SUFFIX)) {
+            return map(file);
+        }
+        return new Environment(readEdgeList(file));
+    }
+
+    /**
+     * Parses a plain edge-list file.
+     *
+     * @param file the edge-list file
+     * @return the undirected edges, over nodes renumbered from 1
+     * @throws IOException if the file cannot be read, a line does not start with two node ids or no
+     *                     edge between two distinct nodes remains
+     */
+    static EdgeList readEdgeList(Path file) throws IOException {
+        // Collect each edge once as (smaller id, larger id) packed into a long
+        long[] pairs = new long[1024];
+        int size = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                int start = skipSeparators(line, 0);
+                if (start == line.length() || line.charAt(start) == '#' || line.charAt(start) == '%') {
+                    continue;
+                }
+                int end = skipDigits(line, start);
+                int next = skipSeparators(line, end);
+                int nextEnd = skipDigits(line, next);
+                if (end == start || nextEnd == next) {
+                    throw new IOException(file + ":" + lineNumber + ": expected two node ids, got \"" + line + "\"");
+                }
+                int node1 = parseId(line, start, end, file, lineNumber);
+                int node2 = parseId(line, next, nextEnd, file, lineNumber);
+                if (node1 == node2) {
+                    continue;
+                }
+                if (size == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, size * 2);
+                }
+                pairs[size++] = (long) Math.min(node1, node2) << 32 | Math.max(node1, node2);
+            }
+        }
+
+        // A graph without edges leaves the agents and the target nowhere to go
+        if (size == 0) {
+            throw new IOException(file + ": no edges between distinct nodes");
+        }
+
+        // Drop repeated edges
+        Arrays.sort(pairs, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || pairs[i] != pairs[unique - 1]) {
+                pairs[unique++] = pairs[i];
+            }
+        }
+
+        // Renumber the ids that occur from 1, in ascending order
+        int[] ids = new int[unique * 2];
+        for (int i = 0; i < unique; i++) {
+            ids[2 * i] = (int) (pairs[i] >>> 32);
+            ids[2 * i + 1] = (int) pairs[i];
+        }
+        Arrays.sort(ids);
+        int nodeCount = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (nodeCount == 0 || ids[i] != ids[nodeCount - 1]) {
+                ids[nodeCount++] = ids[i];
+            }
+        }
+        EdgeList edges = new EdgeList(nodeCount, unique);
+        for (int i = 0; i < unique; i++) {
+            int node1 = Arrays.binarySearch(ids, 0, nodeCount, (int) (pairs[i] >>> 32)) + 1;
+            int node2 = Arrays.binarySearch(ids, 0, nodeCount, (int) pairs[i]) + 1;
+            edges.add(node1, node2);
+        }
+        return edges;
+    }
+
+    /**
+     * Writes an environment's adjacency in the binary CSR format, with its checksum in the header.
+     *
+     * @param environment the environment to write
+     * @param file        the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Environment environment, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // The checksum is only known once the arrays are out, so the header is written last
+            channel.position(HEADER_BYTES);
+            long checksum = writeArrays(environment, channel, null);
+            environment.rememberChecksum(checksum);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(environment.getNodeCount())
+                    .putInt(environment.getMaxDegree()).putLong(environment.getNeighborCount()).putLong(checksum);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Returns the CRC-32C checksum of an environment's adjacency, as stored in its binary file. The
+     * checksum is computed only if the environment does not know it yet, and then remembered.
+     *
+     * @param environment the environment
+     * @return the checksum, from 0 to 2<sup>32</sup> - 1
+     */
+    static long checksum(Environment environment) {
+        long checksum = environment.knownChecksum();
+        if (checksum >= 0) {
+            return checksum;
+        }
+        try {
+            checksum = writeArrays(environment, null, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Unreachable: nothing is written
+        }
+        environment.rememberChecksum(checksum);
+        return checksum;
+    }
+
+    /**
+     * Returns the fingerprint of an environment: its checksum as eight hexadecimal digits. Results
+     * that record the fingerprint can be traced back to the exact graph they ran on.
+     *
+     * @param environment the environment
+     * @return the fingerprint
+     */
+    static String fingerprint(Environment environment) {
+        return String.format("%08x", checksum(environment));
+    }
+
+    /**
+     * Returns the SHA-256 digest of an environment's node count, neighbor count and adjacency arrays,
+     * as 64 hexadecimal digits. Unlike the fingerprint, two different graphs are not expected to
+     * share a digest, so it can name a graph's snapshot. Computing it also remembers the checksum.
+     *
+     * @param environment the environment
+     * @return the digest
+     */
+    static String digest(Environment environment) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Unreachable: every Java platform provides SHA-256
+        }
+        ByteBuffer counts = ByteBuffer.allocate(Integer.BYTES + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        counts.putInt(environment.getNodeCount()).putLong(environment.getNeighborCount());
+        sha256.update(counts.array());
+        try {
+            environment.rememberChecksum(writeArrays(environment, null, sha256));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Unreachable: nothing is written
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /**
+     * Serializes the offsets, degree and neighbor arrays, checksumming the bytes as they go.
+     *
+     * @param environment the environment to serialize
+     * @param channel     the channel to write to, or null to compute the checksum only
+     * @param digest      a digest to feed the bytes to as well, or null
+     * @return the CRC-32C checksum of the bytes
+     * @throws IOException if the channel cannot be written
+     */
+    private static long writeArrays(Environment environment, FileChannel channel, MessageDigest digest)
+            throws IOException {
+        int nodeCount = environment.getNodeCount();
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+
+        // Offsets, entry 0 and 1 both being 0 since nodes are numbered from 1
+        int offset = 0;
+        putInt(channel, crc, digest, buffer, 0);
+        for (int i = 1; i <= nodeCount + 1; i++) {
+            putInt(channel, crc, digest, buffer, offset);
+            offset += environment.getDegree(i);
+        }
+        for (int i = 0; i <= nodeCount; i++) {
+            putInt(channel, crc, digest, buffer, environment.getDegree(i));
+        }
+        for (int i = 1; i <= nodeCount; i++) {
+            for (int k = 0; k < environment.getDegree(i); k++) {
+                putInt(channel, crc, digest, buffer, environment.getNeighbor(i, k));
+            }
+        }
+        drain(channel, crc, digest, buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Maps a binary CSR file and returns an environment that reads its adjacency from the mapping.
+     * The environment carries the checksum verified against the header, so its fingerprint is free.
+     *
+     * @param file the binary graph file
+     * @return the environment
+     * @throws IOException if the file cannot be read, is not a graph file, is truncated or has no edges
+     */
+    static Environment map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + ": not a graph file");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + ": not a graph file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported graph file version " + version);
+            }
+            int nodeCount = header.getInt();
+            int maxDegree = header.getInt();
+            long neighborCount = header.getLong();
+            long checksum = header.getLong();
+            long expected = HEADER_BYTES + 4L * ((nodeCount + 2L) + (nodeCount + 1L) + neighborCount);
+            if (nodeCount < 1 || neighborCount < 0 || channel.size() != expected) {
+                throw new IOException(file + ": truncated or corrupt graph file");
+            }
+            if (neighborCount == 0) {
+                throw new IOException(file + ": no edges between distinct nodes");
+            }
+
+            // The mappings stay valid after the channel is closed
+            long position = HEADER_BYTES;
+            IntBuffer offsets = mapInts(channel, position, nodeCount + 2L);
+            position += 4L * (nodeCount + 2L);
+            IntBuffer degree = mapInts(channel, position, nodeCount + 1L);
+            position += 4L * (nodeCount + 1L);
+            IntBuffer neighbors = mapInts(channel, position, neighborCount);
+            CRC32C crc = new CRC32C();
+            position = HEADER_BYTES;
+            while (position < expected) {
+                long length = Math.min(expected - position, Integer.MAX_VALUE);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            }
+            if (crc.getValue() != checksum) {
+                throw new IOException(file + ": checksum mismatch, the graph file is corrupt");
+            }
+            return new Environment(nodeCount, maxDegree, offsets, degree, neighbors, checksum);
+        }
+    }
+
+    /**
+     * Maps a run of little-endian ints read-only.
+     *
+     * @param channel  the open file
+     * @param position the byte position of the first int
+     * @param count    the number of ints
+     * @return a view of the ints
+     * @throws IOException if the run is too large for one mapping or cannot be mapped
+     */
+    private static IntBuffer mapInts(FileChannel channel, long position, long count) throws IOException {
+        if (4 * count > Integer.MAX_VALUE) {
+            throw new IOException("Graph array of " + count + " entries is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4 * count)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Appends an int to the write buffer, draining it first if it is full.
+     *
+     * @param channel the file being written, or null if the bytes are only checksummed
+     * @param crc     the checksum of the bytes drained so far
+     * @param digest  the digest of the bytes drained so far, or null
+     * @param buffer  the write buffer
+     * @param value   the value to append
+     * @throws IOException if the file cannot be written
+     */
+    private static void putInt(FileChannel channel, CRC32C crc, MessageDigest digest, ByteBuffer buffer, int value)
+            throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            drain(channel, crc, digest, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    /**
+     * Checksums everything in the buffer, writes it out and clears the buffer.
+     *
+     * @param channel the file being written, or null if the bytes are only checksummed
+     * @param crc     the checksum of the bytes drained so far
+     * @param digest  the digest of the bytes drained so far, or null
+     * @param buffer  the write buffer
+     * @throws IOException if the file cannot be written
+     */
+    private static void drain(FileChannel channel, CRC32C crc, MessageDigest digest, ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        if (digest != null) {
+            digest.update(buffer.array(), 0, buffer.limit());
+        }
+        while (channel != null && buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the position of the first character at or after {@code from} that is not a separator.
+     *
+     * @param line the line
+     * @param from the position to start at
+     * @return the position, or the line length if only separators remain
+     */
+    private static int skipSeparators(String line, int from) {
+        while (from < line.length() && (Character.isWhitespace(line.charAt(from)) || line.charAt(from) == ',')) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Returns the position of the first character at or after {@code from} that is not a digit.
+     *
+     * @param line the line
+     * @param from the position to start at
+     * @return the position, or the line length if only digits remain
+     */
+    private static int skipDigits(String line, int from) {
+        while (from < line.length() && line.charAt(from) >= '0' && line.charAt(from) <= '9') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Parses the node id between two positions of a line.
+     *
+     * @param line       the line
+     * @param start      the position of the first digit
+     * @param end        one past the position of the last digit
+     * @param file       the file, for the error message
+     * @param lineNumber the line number, for the error message
+     * @return the node id
+     * @throws IOException if the id does not fit in an int
+     */
+    private static int parseId(String line, int start, int end, Path file, int lineNumber) throws IOException {
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            id = id * 10 + (line.charAt(i) - '0');
+            if (id > Integer.MAX_VALUE) {
+                throw new IOException(file + ":" + lineNumber + ": node id too large in \"" + line + "\"");
+            }
+        }
+        return (int) id;
+    }
+}
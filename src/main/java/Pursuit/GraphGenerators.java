@@ -0,0 +1,591 @@
+/**
+ * Seeded generators for families of graphs, each building its edge list in time linear in the
+ * number of edges.
+ * <p>
+ * The families are the simulation's own loop with chords, two- and three-dimensional grids, random
+ * d-regular graphs, Watts-Strogatz small worlds and Barabasi-Albert preferential-attachment graphs.
+ * Every random choice comes from the given generator, so a seed always yields the same graph.
+ * Generators never spin: each random draw either succeeds or is retried with a bounded expected
+ * number of attempts, and a request that cannot be met is rejected with an
+ * {@link IllegalArgumentException} instead of looping forever.
+ * </p>
+ * <p>
+ * {@link #generate(String, int, RandomGenerator)} builds a graph from a short text spec such as
+ * {@code "grid2d"} or {@code "ws:6:0.1"}, for use on the command line.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.random.RandomGenerator;
+
+class GraphGenerators {
+    private static final int LOOP_DEGREE = 3; // Largest degree in a loop with chords
+    private static final int MAX_SWITCH_ATTEMPTS = 10_000; // Rewiring attempts per bad d-regular edge
+
+    private GraphGenerators() {
+        // Static helpers only
+    }
+
+    /**
+     * Builds a graph from a text spec: the family name, optionally followed by parameters separated
+     * by colons.
+     * <ul>
+     *   <li>{@code ring[:CHORDS]} - loop with chords, one per four nodes by default</li>
+     *   <li>{@code grid2d[:WxH]} - square grid of about nodeCount nodes by default</li>
+     *   <li>{@code grid3d[:XxYxZ]} - cubic grid of about nodeCount nodes by default</li>
+     *   <li>{@code regular:D} - random D-regular graph</li>
+     *   <li>{@code ws:K:BETA} - Watts-Strogatz graph with K ring neighbors, rewired with probability BETA</li>
+     *   <li>{@code ba:M} - Barabasi-Albert graph attaching each node with M edges</li>
+     * </ul>
+     *
+     * @param spec      the family and its parameters
+     * @param nodeCount the number of nodes, rounded down to a whole grid for the grid families
+     * @param rand      the random number generator for the random families
+     * @return the generated edge list
+     * @throws IllegalArgumentException if the spec is malformed or its parameters cannot be met
+     */
+    static EdgeList generate(String spec, int nodeCount, RandomGenerator rand) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "ring":
+                    return ringWithChords(nodeCount, parts.length > 1 ? Integer.parseInt(parts[1]) : nodeCount / 4, rand);
+                case "grid2d": {
+                    int side = (int) Math.sqrt(nodeCount);
+                    int[] size = parts.length > 1 ? dimensions(parts[1], 2) : new int[] {side, side};
+                    return grid(size[0], size[1], 1);
+                }
+                case "grid3d": {
+                    int side = (int) Math.cbrt(nodeCount);
+                    int[] size = parts.length > 1 ? dimensions(parts[1], 3) : new int[] {side, side, side};
+                    return grid(size[0], size[1], size[2]);
+                }
+                case "regular":
+                    return randomRegular(nodeCount, Integer.parseInt(parts[1]), rand);
+                case "ws":
+                    return wattsStrogatz(nodeCount, Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), rand);
+                case "ba":
+                    return barabasiAlbert(nodeCount, Integer.parseInt(parts[1]), rand);
+                default:
+                    throw new IllegalArgumentException("Unknown graph family \"" + parts[0] + "\" in \"" + spec + "\"");
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed graph spec \"" + spec + "\"", e);
+        }
+    }
+
+    /**
+     * Builds a loop of nodes with the given number of random chords, keeping every degree at most three.
+     * <p>
+     * Chords are drawn over all nodes while at least half of them can still take one, which needs
+     * at most four draws per chord on average; after that they are drawn from the list of nodes that
+     * can still take one, so the remaining chords cost O(1) draws each however full the loop gets.
+     * Both phases skip pairs that are the same node or loop neighbors.
+     * </p>
+     *
+     * @param nodeCount the number of nodes in the loop, at least 3
+     * @param chords    the number of chords to add, at most about nodeCount / 2
+     * @param rand      the random number generator used to pick the chords
+     * @return the generated edge list
+     * @throws IllegalArgumentException if the loop is too small or cannot take that many chords; close
+     *                                  to nodeCount / 2 chords, this can depend on the earlier draws
+     */
+    static EdgeList ringWithChords(int nodeCount, int chords, RandomGenerator rand) {
+        if (nodeCount < 3) {
+            throw new IllegalArgumentException("A loop needs at least 3 nodes, got " + nodeCount);
+        }
+        if (chords < 0 || chords > nodeCount / 2) {
+            throw new IllegalArgumentException("A loop of " + nodeCount + " nodes cannot take " + chords + " chords");
+        }
+        EdgeList edges = new EdgeList(nodeCount, nodeCount + chords);
+        int[] degree = new int[nodeCount + 1];
+
+        // Create a loop of nodes
+        for (int i = 1; i <= nodeCount; i++) {
+            edges.add(i, i % nodeCount + 1);
+            degree[i]++;
+            degree[i % nodeCount + 1]++;
+        }
+
+        // Nodes below the degree cap, kept as a list with each node's position for O(1) removal
+        int[] free = new int[nodeCount];
+        int[] slot = new int[nodeCount + 1];
+        int freeCount = nodeCount;
+        for (int i = 1; i <= nodeCount; i++) {
+            free[i - 1] = i;
+            slot[i] = i - 1;
+        }
+
+        // Add the chords. A node below the degree cap still has only its two loop edges, so two
+        // such nodes are already connected exactly when they are loop neighbors.
+        int addedEdges = 0;
+        while (addedEdges < chords) {
+            if (!hasChordPair(free, freeCount, nodeCount)) {
+                throw new IllegalArgumentException("A loop of " + nodeCount + " nodes ran out of room after "
+                        + addedEdges + " of " + chords + " chords with degrees of at most " + LOOP_DEGREE);
+            }
+            int node1;
+            int node2;
+            if (2 * freeCount >= nodeCount) {
+                node1 = rand.nextInt(nodeCount) + 1;
+                node2 = rand.nextInt(nodeCount) + 1;
+            } else {
+                node1 = free[rand.nextInt(freeCount)];
+                node2 = free[rand.nextInt(freeCount)];
+            }
+            if (node1 != node2 && !loopNeighbors(node1, node2, nodeCount)
+                    && degree[node1] < LOOP_DEGREE && degree[node2] < LOOP_DEGREE) {
+                edges.add(node1, node2);
+                degree[node1]++;
+                degree[node2]++;
+                freeCount = removeFree(free, slot, freeCount, node1);
+                freeCount = removeFree(free, slot, freeCount, node2);
+                addedEdges++;
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Builds a grid with edges between nodes that differ by one in a single coordinate. A depth of
+     * one gives a two-dimensional grid. Node {@code (x, y, z)} is numbered
+     * {@code 1 + x + width * (y + height * z)}.
+     *
+     * @param width  the number of nodes along x, at least 1
+     * @param height the number of nodes along y, at least 1
+     * @param depth  the number of nodes along z, at least 1
+     * @return the generated edge list
+     * @throws IllegalArgumentException if a dimension is not positive, or the grid has fewer than 2 nodes
+     */
+    static EdgeList grid(int width, int height, int depth) {
+        long nodes = (long) width * height * depth;
+        if (width < 1 || height < 1 || depth < 1 || nodes < 2 || nodes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid of " + width + "x" + height + "x" + depth + " nodes");
+        }
+        long edgeCount = (long) (width - 1) * height * depth + (long) width * (height - 1) * depth
+                + (long) width * height * (depth - 1);
+        if (edgeCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges in a grid of " + width + "x" + height + "x" + depth + " nodes");
+        }
+        EdgeList edges = new EdgeList((int) nodes, (int) edgeCount);
+        for (int z = 0; z < depth; z++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int node = 1 + x + width * (y + height * z);
+                    if (x + 1 < width) {
+                        edges.add(node, node + 1);
+                    }
+                    if (y + 1 < height) {
+                        edges.add(node, node + width);
+                    }
+                    if (z + 1 < depth) {
+                        edges.add(node, node + width * height);
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Builds a random graph in which every node has exactly {@code degree} neighbors.
+     * <p>
+     * The endpoints of all edges are shuffled and paired (the configuration model), and every pair
+     * that is a self-loop or repeats an edge is then repaired by a random edge switch with a good
+     * pair. For sparse graphs only a handful of pairs need repairing, so the whole build is linear.
+     * </p>
+     *
+     * @param nodeCount the number of nodes
+     * @param degree    the degree of every node, at least 1 and less than nodeCount
+     * @param rand      the random number generator used to pair the endpoints
+     * @return the generated edge list
+     * @throws IllegalArgumentException if no such graph exists, or the repair does not converge
+     */
+    static EdgeList randomRegular(int nodeCount, int degree, RandomGenerator rand) {
+        if (degree < 1 || degree >= nodeCount || (long) nodeCount * degree % 2 != 0) {
+            throw new IllegalArgumentException("No " + degree + "-regular graph on " + nodeCount + " nodes");
+        }
+        long endpointCount = (long) nodeCount * degree;
+        if (endpointCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges for a " + degree + "-regular graph on " + nodeCount + " nodes");
+        }
+
+        // Shuffle the endpoints and pair them up
+        int[] endpoint = new int[(int) endpointCount];
+        for (int i = 0; i < endpoint.length; i++) {
+            endpoint[i] = i / degree + 1;
+        }
+        for (int i = endpoint.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = endpoint[i];
+            endpoint[i] = endpoint[j];
+            endpoint[j] = swap;
+        }
+        int edgeCount = endpoint.length / 2;
+        EdgeSet present = new EdgeSet(edgeCount);
+        boolean[] bad = new boolean[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int u = endpoint[2 * e];
+            int v = endpoint[2 * e + 1];
+            bad[e] = u == v || !present.add(u, v);
+        }
+
+        // Switch each bad pair (u, v) with a good pair (a, b) into (u, a) and (v, b)
+        for (int e = 0; e < edgeCount; e++) {
+            int attempts = 0;
+            while (bad[e]) {
+                if (++attempts > MAX_SWITCH_ATTEMPTS) {
+                    throw new IllegalArgumentException("Could not build a simple " + degree
+                            + "-regular graph on " + nodeCount + " nodes; try a smaller degree");
+                }
+                int other = rand.nextInt(edgeCount);
+                if (bad[other]) {
+                    continue;
+                }
+                int u = endpoint[2 * e];
+                int v = endpoint[2 * e + 1];
+                boolean flip = rand.nextBoolean();
+                int a = endpoint[2 * other + (flip ? 1 : 0)];
+                int b = endpoint[2 * other + (flip ? 0 : 1)];
+                if (u == a || v == b || present.contains(u, a) || present.contains(v, b)
+                        || Math.min(u, a) == Math.min(v, b) && Math.max(u, a) == Math.max(v, b)) {
+                    continue;
+                }
+                present.remove(a, b);
+                present.add(u, a);
+                present.add(v, b);
+                endpoint[2 * e + 1] = a;
+                endpoint[2 * other] = v;
+                endpoint[2 * other + 1] = b;
+                bad[e] = false;
+            }
+        }
+
+        EdgeList edges = new EdgeList(nodeCount, edgeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            edges.add(endpoint[2 * e], endpoint[2 * e + 1]);
+        }
+        return edges;
+    }
+
+    /**
+     * Builds a Watts-Strogatz small-world graph: a loop in which every node is joined to its
+     * {@code neighbors / 2} nearest nodes on each side, after which each edge keeps its first node
+     * and, with probability {@code beta}, has its other end moved to a random node. Moves that would
+     * create a self-loop or repeat an edge are redrawn.
+     *
+     * @param nodeCount the number of nodes
+     * @param neighbors the number of loop neighbors of each node, even, at least 2 and less than nodeCount - 1
+     * @param beta      the probability of rewiring each edge, from 0 to 1
+     * @param rand      the random number generator used to rewire the edges
+     * @return the generated edge list
+     * @throws IllegalArgumentException if the parameters are out of range
+     */
+    static EdgeList wattsStrogatz(int nodeCount, int neighbors, double beta, RandomGenerator rand) {
+        if (neighbors < 2 || neighbors % 2 != 0 || neighbors >= nodeCount - 1 || !(beta >= 0 && beta <= 1)) {
+            throw new IllegalArgumentException("Invalid Watts-Strogatz parameters: " + nodeCount
+                    + " nodes, " + neighbors + " neighbors, beta " + beta);
+        }
+        int half = neighbors / 2;
+        if ((long) nodeCount * half > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges for a Watts-Strogatz graph on " + nodeCount + " nodes");
+        }
+        int edgeCount = nodeCount * half;
+        int[] from = new int[edgeCount];
+        int[] to = new int[edgeCount];
+        int[] degree = new int[nodeCount + 1];
+        EdgeSet present = new EdgeSet(edgeCount);
+        int e = 0;
+        for (int j = 1; j <= half; j++) {
+            for (int i = 1; i <= nodeCount; i++) {
+                from[e] = i;
+                to[e] = (i + j - 1) % nodeCount + 1;
+                present.add(from[e], to[e]);
+                degree[i]++;
+                degree[to[e]]++;
+                e++;
+            }
+        }
+
+        // Rewire, one ring distance at a time as in the original construction. A node joined to
+        // every other node cannot be rewired, and below that a valid end is found in O(1) draws.
+        for (e = 0; e < edgeCount; e++) {
+            int u = from[e];
+            if (rand.nextDouble() >= beta || degree[u] >= nodeCount - 1) {
+                continue;
+            }
+            int w;
+            do {
+                w = rand.nextInt(nodeCount) + 1;
+            } while (w == u || present.contains(u, w));
+            present.remove(u, to[e]);
+            present.add(u, w);
+            degree[to[e]]--;
+            degree[w]++;
+            to[e] = w;
+        }
+
+        EdgeList edges = new EdgeList(nodeCount, edgeCount);
+        for (e = 0; e < edgeCount; e++) {
+            edges.add(from[e], to[e]);
+        }
+        return edges;
+    }
+
+    /**
+     * Builds a Barabasi-Albert graph: starting from a clique of {@code attachments + 1} nodes, every
+     * further node joins {@code attachments} distinct existing nodes, each picked with probability
+     * proportional to its degree. Picking a uniformly random entry of the list of all edge endpoints
+     * gives exactly that probability in O(1).
+     *
+     * @param nodeCount   the number of nodes, more than attachments
+     * @param attachments the number of edges each new node brings, at least 1
+     * @param rand        the random number generator used to pick the attachments
+     * @return the generated edge list
+     * @throws IllegalArgumentException if the parameters are out of range
+     */
+    static EdgeList barabasiAlbert(int nodeCount, int attachments, RandomGenerator rand) {
+        if (attachments < 1 || attachments >= nodeCount) {
+            throw new IllegalArgumentException("Invalid Barabasi-Albert parameters: " + nodeCount
+                    + " nodes, " + attachments + " attachments");
+        }
+        int seedNodes = attachments + 1;
+        long edgeCount = (long) seedNodes * attachments / 2 + (long) (nodeCount - seedNodes) * attachments;
+        if (2 * edgeCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges for a Barabasi-Albert graph on " + nodeCount + " nodes");
+        }
+        EdgeList edges = new EdgeList(nodeCount, (int) edgeCount);
+        int[] endpoints = new int[(int) (2 * edgeCount)];
+        int size = 0;
+        for (int i = 1; i <= seedNodes; i++) {
+            for (int j = i + 1; j <= seedNodes; j++) {
+                edges.add(i, j);
+                endpoints[size++] = i;
+                endpoints[size++] = j;
+            }
+        }
+
+        int[] chosen = new int[attachments];
+        for (int node = seedNodes + 1; node <= nodeCount; node++) {
+            // Every existing node has degree at least attachments, so duplicates are rare
+            for (int k = 0; k < attachments; k++) {
+                int target;
+                do {
+                    target = endpoints[rand.nextInt(size)];
+                } while (contains(chosen, k, target));
+                chosen[k] = target;
+            }
+            for (int k = 0; k < attachments; k++) {
+                edges.add(node, chosen[k]);
+                endpoints[size++] = node;
+                endpoints[size++] = chosen[k];
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Parses grid dimensions such as {@code 200x300}.
+     *
+     * @param text  the dimensions
+     * @param count the number of dimensions expected
+     * @return the dimensions, padded with 1 if fewer are given
+     * @throws NumberFormatException if a dimension is not a number
+     */
+    private static int[] dimensions(String text, int count) {
+        String[] parts = text.split("x");
+        if (parts.length > count) {
+            throw new NumberFormatException("Too many dimensions in \"" + text + "\"");
+        }
+        int[] size = new int[count];
+        for (int i = 0; i < count; i++) {
+            size[i] = i < parts.length ? Integer.parseInt(parts[i]) : 1;
+        }
+        return size;
+    }
+
+    /**
+     * Returns whether two nodes are next to each other on a loop.
+     *
+     * @param node1     the first node
+     * @param node2     the second node
+     * @param nodeCount the number of nodes in the loop
+     * @return true if the nodes are loop neighbors
+     */
+    private static boolean loopNeighbors(int node1, int node2, int nodeCount) {
+        return node2 == node1 % nodeCount + 1 || node1 == node2 % nodeCount + 1;
+    }
+
+    /**
+     * Returns whether the free nodes still contain two that a chord may join. Among four or more
+     * nodes there always are; smaller sets are checked pair by pair.
+     *
+     * @param free      the free nodes
+     * @param freeCount the number of free nodes
+     * @param nodeCount the number of nodes in the loop
+     * @return true if some pair of free nodes is not the same node and not loop neighbors
+     */
+    private static boolean hasChordPair(int[] free, int freeCount, int nodeCount) {
+        if (freeCount >= 4) {
+            return true;
+        }
+        for (int i = 0; i < freeCount; i++) {
+            for (int j = i + 1; j < freeCount; j++) {
+                if (!loopNeighbors(free[i], free[j], nodeCount)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a node from the free list by moving the last free node into its place. A chord always
+     * brings both of its nodes to the degree cap, so they leave the list as soon as it is added.
+     *
+     * @param free      the free nodes
+     * @param slot      the position of each free node in the list
+     * @param freeCount the number of free nodes
+     * @param node      the node to remove
+     * @return the new number of free nodes
+     */
+    private static int removeFree(int[] free, int[] slot, int freeCount, int node) {
+        int position = slot[node];
+        int last = free[--freeCount];
+        free[position] = last;
+        slot[last] = position;
+        return freeCount;
+    }
+
+    /**
+     * Returns whether the first entries of an array contain a value.
+     *
+     * @param values the array
+     * @param count  the number of entries to search
+     * @param value  the value to look for
+     * @return true if the value is among the first count entries
+     */
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An open-addressing hash set of undirected edges, so that duplicate checks neither box nor
+     * allocate. Removal shifts later entries of the probe run back, leaving no tombstones.
+     */
+    private static final class EdgeSet {
+        private static final long EMPTY = 0L; // No edge has both endpoints 0
+
+        private final long[] table;
+        private final int mask;
+
+        /**
+         * Constructs a set with room for the given number of edges at a load factor of at most one half.
+         *
+         * @param capacity the largest number of edges the set will hold
+         */
+        EdgeSet(int capacity) {
+            if (capacity > 1 << 29) {
+                throw new IllegalArgumentException("Too many edges to track: " + capacity);
+            }
+            int size = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+            table = new long[size];
+            mask = table.length - 1;
+        }
+
+        /**
+         * Adds an edge.
+         *
+         * @param u one endpoint
+         * @param v the other endpoint
+         * @return true if the edge was not already present
+         */
+        boolean add(int u, int v) {
+            long key = key(u, v);
+            int i = indexOf(key);
+            if (table[i] == key) {
+                return false;
+            }
+            table[i] = key;
+            return true;
+        }
+
+        /**
+         * Returns whether an edge is present.
+         *
+         * @param u one endpoint
+         * @param v the other endpoint
+         * @return true if the edge is in the set
+         */
+        boolean contains(int u, int v) {
+            long key = key(u, v);
+            return table[indexOf(key)] == key;
+        }
+
+        /**
+         * Removes an edge if it is present.
+         *
+         * @param u one endpoint
+         * @param v the other endpoint
+         */
+        void remove(int u, int v) {
+            int hole = indexOf(key(u, v));
+            if (table[hole] == EMPTY) {
+                return;
+            }
+            // Move back any later entry of the run whose home slot is not after the hole
+            table[hole] = EMPTY;
+            for (int i = (hole + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+                int home = home(table[i]);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    table[hole] = table[i];
+                    table[i] = EMPTY;
+                    hole = i;
+                }
+            }
+        }
+
+        /**
+         * Returns the slot holding the key, or the empty slot that ends its probe run.
+         *
+         * @param key the packed edge
+         * @return the slot index
+         */
+        private int indexOf(long key) {
+            int i = home(key);
+            while (table[i] != EMPTY && table[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        /**
+         * Returns the slot a key is first probed at.
+         *
+         * @param key the packed edge
+         * @return the slot index
+         */
+        private int home(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        /**
+         * Packs an undirected edge into a long, smaller endpoint first.
+         *
+         * @param u one endpoint
+         * @param v the other endpoint
+         * @return the packed edge
+         */
+        private static long key(int u, int v) {
+            return (long) Math.min(u, v) << 32 | Math.max(u, v);
+        }
+    }
+}
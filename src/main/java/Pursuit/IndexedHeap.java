@@ -0,0 +1,147 @@
+/**
+ * A d-ary min-heap of node ids keyed by {@code double} priorities, with an index from node to heap slot.
+ * <p>
+ * The index makes decrease-key O(log_d n) instead of the O(n) remove-and-reinsert a
+ * {@link java.util.PriorityQueue} needs, and everything lives in primitive arrays sized once for the
+ * graph. A wider node (d = 4) keeps the heap shallow and the children of a slot on one cache line.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+
+class IndexedHeap {
+    private static final int ARITY = 4; // Children per heap slot
+
+    private final int[] heap;     // Node ids in heap order
+    private final int[] position; // Heap slot of each node, -1 if not in the heap
+    private final double[] keys;  // Priority of each node currently in the heap
+    private int size = 0;
+
+    /**
+     * Constructs an empty heap for nodes numbered from 1 to the given count.
+     *
+     * @param nodeCount the largest node id
+     */
+    IndexedHeap(int nodeCount) {
+        this.heap = new int[nodeCount];
+        this.position = new int[nodeCount + 1];
+        this.keys = new double[nodeCount + 1];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Returns whether the heap is empty.
+     *
+     * @return true if there are no nodes in the heap
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every node from the heap, in time proportional to the number of nodes it held.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Inserts a node, or lowers its priority if it is already in the heap with a larger key.
+     *
+     * @param node the node id
+     * @param key  the priority of the node
+     */
+    void push(int node, double key) {
+        int slot = position[node];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = node;
+            position[node] = slot;
+        } else if (key >= keys[node]) {
+            return;
+        }
+        keys[node] = key;
+        siftUp(slot);
+    }
+
+    /**
+     * Removes and returns the node with the smallest key.
+     *
+     * @return the node with the smallest key
+     */
+    int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Moves the node in the given slot up until its parent has a smaller or equal key.
+     *
+     * @param slot the heap slot
+     */
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        double key = keys[node];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) / ARITY;
+            int parent = heap[parentSlot];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[slot] = parent;
+            position[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = node;
+        position[node] = slot;
+    }
+
+    /**
+     * Moves the node in the given slot down until all of its children have larger or equal keys.
+     *
+     * @param slot the heap slot
+     */
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        double key = keys[node];
+        while (true) {
+            int firstChild = slot * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            // Find the smallest child
+            int best = firstChild;
+            double bestKey = keys[heap[firstChild]];
+            int lastChild = Math.min(firstChild + ARITY, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                double childKey = keys[heap[child]];
+                if (childKey < bestKey) {
+                    best = child;
+                    bestKey = childKey;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int bestNode = heap[best];
+            heap[slot] = bestNode;
+            position[bestNode] = slot;
+            slot = best;
+        }
+        heap[slot] = node;
+        position[node] = slot;
+    }
+}
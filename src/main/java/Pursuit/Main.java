@@ -9,74 +9,201 @@
  * The simulation includes the following steps:
  * <ul>
  *   <li>Initialization of the environment and agents.</li>
- *   <li>Running trials for each agent individually.</li>
- *   <li>Resetting the agent for a new trial.</li>
+ *   <li>Running trials for each agent individually, each with a fresh agent and target.</li>
  *   <li>Moving the target and agent until the target is captured.</li>
  *   <li>Recording the number of steps taken for the agent in each trial.</li>
- *   <li>Calculating and printing the average number of steps taken for each agent.</li>
+ *   <li>Calculating and printing the average number of steps taken for each agent, with the mean, spread and tail
+ *   percentiles of the rounds each episode lasted.</li>
  * </ul>
  * </p>
+ * <p>
+ * The number of nodes in the environment can be set with {@code --nodes=N} (40 by default), and
+ * {@code --threads=N} spreads the trials across N worker threads ({@code 0} uses every core). The
+ * averages do not depend on the number of threads.
+ * </p>
+ * <p>
+ * {@code --topology=SPEC} generates another family of graph with {@code --nodes} nodes instead of the
+ * loop with chords, such as {@code grid2d}, {@code regular:4} or {@code ws:6:0.1} (see
+ * {@link GraphGenerators#generate(String, int, java.util.random.RandomGenerator)}).
+ * </p>
+ * <p>
+ * {@code --graph=FILE} runs the agents on a graph read from FILE instead of a generated one: a
+ * binary CSR file ending in {@code .csr} is memory-mapped, and any other file is parsed as a plain
+ * edge list (see {@link GraphFiles}). {@code --nodes} is then ignored.
+ * </p>
+ * <p>
+ * {@code --save-snapshot=NAME} saves the environment to the {@link SnapshotStore} in
+ * {@code --snapshot-dir=DIR} ({@code snapshots} by default), and {@code --snapshot=NAME} loads it
+ * again, by name or by the SHA-256 digest printed when it was saved, instead of generating or reading
+ * a graph. The run always begins by printing the fingerprint of the environment, so its results can
+ * be traced to the graph they ran on.
+ * </p>
+ * <p>
+ * Every random stream is derived from the root seed given by {@code --seed=N} (42 by default), so a
+ * run, including the generated environment, can be reproduced exactly.
+ * </p>
+ * <p>
+ * With {@code --batch=B}, agents that provide a {@link BatchMove} run B episodes in lockstep per
+ * worker through a {@link BatchedEpisodeEngine}. The averages are the same as without it.
+ * </p>
+ * <p>
+ * {@code --max-rounds=N} and {@code --time-budget-ms=N} cut off any episode that runs longer than
+ * N rounds or N milliseconds (both unlimited by default). Cut-off episodes are reported as censored
+ * and left out of the average.
+ * </p>
+ * <p>
+ * {@code --ci-width=W} replaces the fixed 100 trials per agent with a {@link StoppingRule}: trials run
+ * in batches of 100 until the 95% confidence interval of the mean number of rounds to the capture is
+ * at most W rounds wide, or until {@code --max-trials=N} trials (100000 by default) have run.
+ * </p>
+ * <p>
+ * With {@code --crn}, every agent plays the same trials (common random numbers): trial i has the
+ * same start nodes and the same target walk for all agents, so differences between agents are not
+ * drowned in trial-to-trial noise. Without it, each agent's trials are drawn from its own seed.
+ * </p>
+ * <p>
+ * {@code --results=FILE} writes one record per episode to FILE through a {@link ResultSink}: the
+ * agent, seed, trial, start nodes, steps, outcome and wall time, as CSV if the name ends in
+ * {@code .csv} and in a columnar binary format otherwise.
+ * </p>
+ * <p>
+ * {@code --metrics-out=FILE} turns on the hot-path {@link Metrics} and writes them to FILE at the end
+ * of the run, as CSV if the name ends in {@code .csv} and in the Prometheus text format otherwise.
+ * </p>
  *
  * @author Robert Jean Pierre
  */
 package Pursuit;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Metrics are switched on before anything reads the switch
+        String metricsOut = option(args, "metrics-out", null);
+        if (metricsOut != null) {
+            System.setProperty("pursuit.metrics", "true");
+        }
+
         int numTrials = 100; // Number of trials to run for each agent
-        long seed = 42; // Use any seed value you prefer (e.g., 42)
+        long seed = Long.parseLong(option(args, "seed", "42")); // Root seed for every random stream
+        int nodeCount = Integer.parseInt(option(args, "nodes", "40")); // Number of nodes in the environment
+        int threads = Integer.parseInt(option(args, "threads", "1")); // Worker threads, 0 uses every core
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        int batchLanes = Integer.parseInt(option(args, "batch", "0")); // Lockstep episodes per worker, 0 disables batching
+        EpisodeBudget budget = EpisodeBudget.of( // Per-episode limits, 0 means unlimited
+                Long.parseLong(option(args, "max-rounds", "0")),
+                Long.parseLong(option(args, "time-budget-ms", "0")));
+        double ciWidth = Double.parseDouble(option(args, "ci-width", "0")); // Target confidence interval width, 0 runs numTrials
+        boolean commonTrials = flag(args, "crn"); // Every agent plays the same trials
+        StoppingRule rule = ciWidth > 0
+                ? new StoppingRule(ciWidth, numTrials, Long.parseLong(option(args, "max-trials", "100000")))
+                : null;
 
-        Random random = new Random(seed); // Use any seed value you prefer (e.g., 42)
-        Environment env = new Environment();
+        String topology = option(args, "topology", null); // Graph family to generate, null for the default loop
+        String graphFile = option(args, "graph", null); // Graph to load instead of generating one
+        String snapshot = option(args, "snapshot", null); // Saved environment to load, by name or digest
+        String saveSnapshot = option(args, "save-snapshot", null); // Name to save the environment under
+        SnapshotStore snapshots = new SnapshotStore(Path.of(option(args, "snapshot-dir", "snapshots")));
+        String resultsFile = option(args, "results", null); // File receiving a record of every episode
+        Environment env;
+        if (snapshot != null) {
+            env = snapshots.load(snapshot);
+        } else if (graphFile != null) {
+            env = GraphFiles.load(Path.of(graphFile));
+        } else {
+            env = generate(topology, nodeCount, seed);
+        }
+        if (saveSnapshot != null) {
+            System.out.println("Saved snapshot " + saveSnapshot + " as " + snapshots.save(env, saveSnapshot));
+        }
+        System.out.println("Environment " + GraphFiles.fingerprint(env) + ": " + env.getNodeCount() + " nodes, "
+                + env.getNeighborCount() / 2 + " edges");
 
         // Initialize the agents
-        List<Agent> agents = new ArrayList<>();
-        agents.add(new Agent0(new Random().nextInt(40) + 1));
-        agents.add(new Agent1(new Random().nextInt(40) + 1));
-        agents.add(new Agent2(new Random().nextInt(40) + 1));
-        agents.add(new Agent3(new Random().nextInt(40) + 1));
-        agents.add(new Agent4(new Random().nextInt(40) + 1));
-        agents.add(new Agent5(new Random().nextInt(40) + 1));
-        agents.add(new Agent6(new Random().nextInt(40) + 1));
-        agents.add(new Agent7(new Random().nextInt(40) + 1));
-
-        // Run trials for each agent individually
-        for (Agent agent : agents) {
-            double totalSteps = 0;
-
-            for (int trial = 0; trial < numTrials; trial++) {
-                // Reset the agent for a new trial
-                agent = agent.reset(new Random().nextInt(40) + 1);
-
-                // Run the simulation until the target is captured
-                boolean gameOver = false;
-                Target target = new Target(env, new Random().nextInt(40) + 1);
-                while (!gameOver) {
-                    // Move the target
-                    target.move(env);
+        Map<String, AgentFactory> agents = AgentFactory.all();
+        Map<String, BatchMove> batchMoves = BatchMove.all();
 
-                    // Move the agent and check if it captures the target
-                    if (!agent.capture(target)) {
-                        agent.move(env, target);
-                    }
-
-                    // Check if the agent captured the target
-                    if (agent.capture(target)) {
-                        gameOver = true;
-                    }
+        // Run trials for each agent individually, each trial with its own agent and target
+        try (ResultSink results = resultsFile != null ? new ResultSink(Path.of(resultsFile)) : null;
+             TrialRunner runner = new TrialRunner(env, threads, budget, results)) {
+            for (Map.Entry<String, AgentFactory> agent : agents.entrySet()) {
+                // Collect the statistics of the steps taken for the agent across all trials
+                long agentSeed = commonTrials ? Seeds.derive(seed, "Trials") : Seeds.derive(seed, agent.getKey());
+                BatchMove batchMove = batchMoves.get(agent.getKey());
+                boolean batched = batchLanes > 0 && batchMove != null;
+                CaptureStats stats;
+                if (rule != null) {
+                    stats = batched
+                            ? runner.captureStats(agent.getKey(), batchMove, agentSeed, rule, batchLanes)
+                            : runner.captureStats(agent.getKey(), agent.getValue(), agentSeed, rule);
+                } else {
+                    stats = batched
+                            ? runner.captureStats(agent.getKey(), batchMove, agentSeed, numTrials, batchLanes)
+                            : runner.captureStats(agent.getKey(), agent.getValue(), agentSeed, numTrials);
                 }
 
-                // Record the number of steps taken for the agent in this trial
-                totalSteps += agent.getStepsTaken();
+                // Print the results
+                System.out.println(agent.getKey() + " Average Steps: " + stats.meanSteps());
+                System.out.println("    " + stats.summary());
+                if (rule != null) {
+                    System.out.printf(Locale.ROOT, "    %d trials, 95%% CI of mean rounds +-%.2f%n",
+                            stats.count() + stats.censored(), StoppingRule.halfWidth(stats));
+                }
             }
+        }
+
+        if (metricsOut != null) {
+            Metrics.write(Path.of(metricsOut));
+        }
+    }
 
-            // Calculate the average number of steps taken for the agent across all trials
-            double avgSteps = totalSteps / numTrials;
+    /**
+     * Generates the environment of a run from the root seed, so that every run with the same seed,
+     * topology and size plays on the same graph.
+     *
+     * @param topology  the {@link GraphGenerators} specification, or null for the default loop with chords
+     * @param nodeCount the number of nodes
+     * @param seed      the root seed of the run
+     * @return the environment
+     */
+    static Environment generate(String topology, int nodeCount, long seed) {
+        SplittableRandom rand = new SplittableRandom(Seeds.derive(seed, "Environment"));
+        return topology != null
+                ? new Environment(GraphGenerators.generate(topology, nodeCount, rand))
+                : new Environment(nodeCount, rand);
+    }
 
-            // Print the results
-            System.out.println(agent.getClass().getSimpleName() + " Average Steps: " + avgSteps);
+    /**
+     * Returns the value of a {@code --name=value} command-line option.
+     *
+     * @param args         the command-line arguments
+     * @param name         the option name, without the leading dashes
+     * @param defaultValue the value to return if the option is absent
+     * @return the option value, or the default value if the option is absent
+     */
+    static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
         }
+        return defaultValue;
+    }
+
+    /**
+     * Returns whether a {@code --name} command-line flag is present.
+     *
+     * @param args the command-line arguments
+     * @param name the flag name, without the leading dashes
+     * @return true if the flag is present
+     */
+    static boolean flag(String[] args, String name) {
+        return Arrays.asList(args).contains("--" + name);
     }
 }
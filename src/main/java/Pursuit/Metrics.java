@@ -0,0 +1,187 @@
+/**
+ * Process-wide hot-path metrics: per-agent timing of {@code move()} and {@code capture()}, and counts
+ * of the work done inside them.
+ * <p>
+ * Metrics are off unless the JVM is started with {@code -Dpursuit.metrics=true} (or {@link Main} is
+ * given {@code --metrics-out}). The switch is read once into the {@code static final} field
+ * {@link #ENABLED}, and every recording site is guarded by it, so when metrics are off the JIT
+ * compiler folds the guard away and the hot paths are exactly as they were.
+ * </p>
+ * <p>
+ * Counters are striped {@link LongAdder}s and timings are {@link ConcurrentHistogram}s, so worker
+ * threads record without locks. Per-agent timers are found through a {@link ClassValue}, which
+ * caches the lookup on the agent's class. At the end of a run, {@link #write(Path)} dumps everything
+ * as CSV or in the Prometheus text exposition format.
+ * </p>
+ * <p>
+ * Episodes run by the {@link BatchedEpisodeEngine} have no per-episode {@code move()} or
+ * {@code capture()} call. There one {@link BatchMove} call moves every lane, so its time is divided
+ * by the lanes it moved and recorded once per lane, and the pass that checks every lane for a
+ * capture (retiring and refilling the finished ones) is amortized the same way. Each lane and round
+ * thus gets one record, whose time is a share of a lockstep call rather than the cost of one call.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("pursuit.metrics"); // Read once, folded by the JIT
+
+    static final LongAdder BFS_EXPANSIONS = new LongAdder();        // Nodes dequeued by breadth-first searches
+    static final LongAdder PARTICLE_RESAMPLES = new LongAdder();    // Resampling passes of particle filters
+    static final LongAdder BELIEF_NORMALIZATIONS = new LongAdder(); // Normalizations of belief states
+
+    private static final Map<String, AgentTimers> REGISTERED = new ConcurrentSkipListMap<>(); // By agent name
+    private static final ClassValue<AgentTimers> TIMERS = new ClassValue<>() {
+        @Override
+        protected AgentTimers computeValue(Class<?> type) {
+            return timers(type.getSimpleName());
+        }
+    };
+
+    private Metrics() {
+        // Static registry only
+    }
+
+    /**
+     * Timings of one agent class.
+     */
+    static final class AgentTimers {
+        final ConcurrentHistogram move = new ConcurrentHistogram();    // Nanoseconds per move()
+        final ConcurrentHistogram capture = new ConcurrentHistogram(); // Nanoseconds per capture()
+    }
+
+    /**
+     * Returns the timers of the given agent class, creating them on first use.
+     *
+     * @param agentClass the class of the agent
+     * @return the agent's timers
+     */
+    static AgentTimers timers(Class<?> agentClass) {
+        return TIMERS.get(agentClass);
+    }
+
+    /**
+     * Returns the timers of the agent with the given class name, creating them on first use.
+     *
+     * @param agentName the simple class name of the agent
+     * @return the agent's timers
+     */
+    static AgentTimers timers(String agentName) {
+        return REGISTERED.computeIfAbsent(agentName, name -> new AgentTimers());
+    }
+
+    /**
+     * Writes every metric to the given file: as CSV if its name ends in {@code .csv}, otherwise in
+     * the Prometheus text exposition format.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            if (file.getFileName().toString().endsWith(".csv")) {
+                writeCsv(out);
+            } else {
+                writePrometheus(out);
+            }
+        }
+    }
+
+    /**
+     * Writes every metric as CSV, one row per counter or timer.
+     *
+     * @param writer the destination
+     */
+    static void writeCsv(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("metric,agent,count,sum,p50,p90,p99,p999,max");
+        out.println("bfs_expansions,," + BFS_EXPANSIONS.sum() + ",,,,,,");
+        out.println("particle_resamples,," + PARTICLE_RESAMPLES.sum() + ",,,,,,");
+        out.println("belief_normalizations,," + BELIEF_NORMALIZATIONS.sum() + ",,,,,,");
+        for (Map.Entry<String, AgentTimers> agent : REGISTERED.entrySet()) {
+            csvRow(out, "move_ns", agent.getKey(), agent.getValue().move);
+            csvRow(out, "capture_ns", agent.getKey(), agent.getValue().capture);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format. Timers become summaries in
+     * seconds with 0.5, 0.9, 0.99 and 0.999 quantiles.
+     *
+     * @param writer the destination
+     */
+    static void writePrometheus(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        promCounter(out, "pursuit_bfs_expansions_total", "Nodes expanded by breadth-first searches.", BFS_EXPANSIONS);
+        promCounter(out, "pursuit_particle_resamples_total", "Resampling passes of particle filters.", PARTICLE_RESAMPLES);
+        promCounter(out, "pursuit_belief_normalizations_total", "Normalizations of belief states.", BELIEF_NORMALIZATIONS);
+        promSummary(out, "pursuit_agent_move_seconds", "Time spent in Agent.move.", true);
+        promSummary(out, "pursuit_agent_capture_seconds", "Time spent in Agent.capture.", false);
+        out.flush();
+    }
+
+    /**
+     * Writes the CSV row of one timer.
+     *
+     * @param out       the destination
+     * @param metric    the metric name
+     * @param agent     the agent name
+     * @param histogram the timer
+     */
+    private static void csvRow(PrintWriter out, String metric, String agent, ConcurrentHistogram histogram) {
+        out.println(metric + "," + agent + "," + histogram.count() + "," + histogram.sum() + ","
+                + histogram.percentile(50) + "," + histogram.percentile(90) + "," + histogram.percentile(99) + ","
+                + histogram.percentile(99.9) + "," + histogram.max());
+    }
+
+    /**
+     * Writes one counter in the Prometheus text format.
+     *
+     * @param out     the destination
+     * @param name    the metric name
+     * @param help    the help text
+     * @param counter the counter
+     */
+    private static void promCounter(PrintWriter out, String name, String help, LongAdder counter) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " counter");
+        out.println(name + " " + counter.sum());
+    }
+
+    /**
+     * Writes the move or capture timers of every agent as one Prometheus summary.
+     *
+     * @param out  the destination
+     * @param name the metric name
+     * @param help the help text
+     * @param move true for the move timers, false for the capture timers
+     */
+    private static void promSummary(PrintWriter out, String name, String help, boolean move) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " summary");
+        for (Map.Entry<String, AgentTimers> agent : REGISTERED.entrySet()) {
+            ConcurrentHistogram histogram = move ? agent.getValue().move : agent.getValue().capture;
+            String label = "agent=\"" + agent.getKey() + "\"";
+            for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+                out.println(String.format(Locale.ROOT, "%s{%s,quantile=\"%s\"} %.9f", name, label,
+                        Double.toString(quantile), histogram.percentile(quantile * 100) / 1e9));
+            }
+            out.println(String.format(Locale.ROOT, "%s_sum{%s} %.9f", name, label, histogram.sum() / 1e9));
+            out.println(name + "_count{" + label + "} " + histogram.count());
+        }
+    }
+}
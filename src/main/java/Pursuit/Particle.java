@@ -7,13 +7,17 @@
  * This class encapsulates the behavior of a single particle within the filter, including prediction,
  * resampling, and weight adjustment.</p>
  *
+ * <p>Updating one particle reads the whole particle list, so updating all N particles is O(N^2).
+ * {@link ParticleFilter} runs the same filter over primitive arrays in O(N) per step and is what
+ * {@link Agent7} uses.</p>
+ *
  * <h3>Usage Example:</h3>
  * <pre>
  * {@code
  * Particle particle = new Particle(5);
  * double[] likelihoods = {...};
  * double[][] transitionMatrix = {...};
- * Random rand = new Random();
+ * RandomGenerator rand = new SplittableRandom(42);
  * List<Particle> particles = {...};
  * int NUM_PARTICLES = 100;
  * particle.update(likelihoods, transitionMatrix, rand, particles, NUM_PARTICLES);
@@ -21,13 +25,13 @@
  * </pre>
  *
  * @author [Robert Jean Pierre]
- * @see Random
+ * @see RandomGenerator
  * @see List
  */
 package Pursuit;
 
 import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Particle {
     private int position;
@@ -92,7 +96,7 @@ public class Particle {
      * @param particles          the list of particles
      * @param NUM_PARTICLES      the number of particles
      */
-    public void update(double[] likelihoods, double[][] transitionMatrix, Random rand, List<Particle> particles, int NUM_PARTICLES) {
+    public void update(double[] likelihoods, double[][] transitionMatrix, RandomGenerator rand, List<Particle> particles, int NUM_PARTICLES) {
         // Particle Filter update step
         int newPosition = predictNextPosition(transitionMatrix, rand);
         double weight = likelihoods[newPosition];
@@ -101,7 +105,7 @@ public class Particle {
 
         // Resampling: Replacing particles based on their weights (likelihoods)
         double totalWeight = particles.stream().mapToDouble(Particle::getWeight).sum();
-        resample(totalWeight, particles, NUM_PARTICLES);
+        resample(totalWeight, particles, NUM_PARTICLES, rand);
     }
 
     /**
@@ -111,14 +115,15 @@ public class Particle {
      * @param totalWeight   the total weight of all particles
      * @param particles     the list of particles
      * @param NUM_PARTICLES the number of particles
+     * @param rand          the random number generator
      */
-    private void resample(double totalWeight, List<Particle> particles, int NUM_PARTICLES) {
+    private void resample(double totalWeight, List<Particle> particles, int NUM_PARTICLES, RandomGenerator rand) {
         // Resample the particle based on its weight
         setWeight(getWeight() / totalWeight);
 
         // Replace the particle with a new one from the current list of particles
         Particle newParticle = particles.get(0);
-        double randomValue = Math.random();
+        double randomValue = rand.nextDouble();
         for (int i = 0; i < NUM_PARTICLES; i++) {
             if (randomValue <= particles.get(i).getWeight()) {
                 newParticle = particles.get(i);
@@ -138,16 +143,16 @@ public class Particle {
      * @param rand             the random number generator
      * @return the predicted next position of the particle
      */
-    private int predictNextPosition(double[][] transitionMatrix, Random rand) {
+    private int predictNextPosition(double[][] transitionMatrix, RandomGenerator rand) {
         // Use the transition probabilities to predict the next position of the particle
         // In this example, we'll use the current position as the prediction
         int sumProbabilities = 0;
-        for (int i = 1; i <= 40; i++) {
+        for (int i = 1; i < transitionMatrix[position].length; i++) {
             sumProbabilities += transitionMatrix[position][i] * 1000;
         }
         int randomNum = rand.nextInt(sumProbabilities);
         int cumulativeProb = 0;
-        for (int i = 1; i <= 40; i++) {
+        for (int i = 1; i < transitionMatrix[position].length; i++) {
             cumulativeProb += transitionMatrix[position][i] * 1000;
             if (randomNum < cumulativeProb) {
                 return i;
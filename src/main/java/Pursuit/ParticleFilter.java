@@ -0,0 +1,143 @@
+/**
+ * Array-backed particle filter used by {@link Agent7} to track the target.
+ * <p>
+ * Particles are stored as a structure of arrays: one {@code int[]} of positions and one
+ * {@code double[]} of weights, rather than a list of {@link Particle} objects. A filter step makes
+ * one pass that moves every particle through the transition model (an O(1) draw from a
+ * {@link TransitionSampler}), weights it by the observation likelihood and accumulates the total
+ * weight, followed by one systematic resampling pass. Both passes are O(N), so a step costs O(N)
+ * instead of the O(N^2) of updating particles one at a time against the whole list.
+ * </p>
+ * <p>
+ * Systematic resampling draws a single uniform offset and then walks the cumulative weights with
+ * N evenly spaced pointers, so weights never need a separate normalization pass: the pointers are
+ * simply scaled by the total weight.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ * @see Particle
+ */
+package Pursuit;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+class ParticleFilter {
+    private int[] position;  // Node of each particle
+    private int[] resampled; // Scratch positions written by the resampling pass
+    private final double[] weight; // Unnormalized weight of each particle
+
+    /**
+     * Constructs a filter with the given number of particles, all at node 1 with weight 1.
+     *
+     * @param numParticles the number of particles
+     * @throws IllegalArgumentException if the number of particles is not positive
+     */
+    ParticleFilter(int numParticles) {
+        if (numParticles < 1) {
+            throw new IllegalArgumentException("Particle count must be positive, got " + numParticles);
+        }
+        this.position = new int[numParticles];
+        this.resampled = new int[numParticles];
+        this.weight = new double[numParticles];
+        Arrays.fill(position, 1);
+        Arrays.fill(weight, 1.0);
+    }
+
+    /**
+     * Returns the number of particles.
+     *
+     * @return the particle count
+     */
+    int size() {
+        return position.length;
+    }
+
+    /**
+     * Returns the position of a particle.
+     *
+     * @param particle the particle index
+     * @return the node the particle is at
+     */
+    int position(int particle) {
+        return position[particle];
+    }
+
+    /**
+     * Spreads the particles uniformly at random over the nodes and resets their weights.
+     *
+     * @param nodeCount the number of nodes
+     * @param rand      the random number generator
+     */
+    void scatter(int nodeCount, RandomGenerator rand) {
+        for (int i = 0; i < position.length; i++) {
+            position[i] = rand.nextInt(nodeCount) + 1;
+        }
+        Arrays.fill(weight, 1.0);
+    }
+
+    /**
+     * Moves every particle to the given node, for when the target has been observed there.
+     *
+     * @param node the node the target was observed at
+     */
+    void collapse(int node) {
+        Arrays.fill(position, node);
+        Arrays.fill(weight, 1.0);
+    }
+
+    /**
+     * Runs one filter step: predict each particle's next position from the transition model, weight
+     * it by the likelihood of its new position, and resample.
+     *
+     * @param transitions samples next positions from the transition model
+     * @param likelihoods the observation likelihood of each node
+     * @param rand        the random number generator
+     */
+    void step(TransitionSampler transitions, double[] likelihoods, RandomGenerator rand) {
+        SimulationEvents.ParticleFilterStepEvent event = new SimulationEvents.ParticleFilterStepEvent();
+        event.begin();
+
+        // Predict and weight in one pass, accumulating the total weight
+        double totalWeight = 0.0;
+        for (int i = 0; i < position.length; i++) {
+            int next = transitions.sample(position[i], rand);
+            position[i] = next;
+            weight[i] = likelihoods[next];
+            totalWeight += weight[i];
+        }
+        resample(totalWeight, rand);
+        event.finish(position.length);
+    }
+
+    /**
+     * Replaces the particles with N draws proportional to their weights, using systematic resampling,
+     * and resets every weight to 1.
+     *
+     * @param totalWeight the sum of all particle weights
+     * @param rand        the random number generator
+     */
+    private void resample(double totalWeight, RandomGenerator rand) {
+        if (Metrics.ENABLED) {
+            Metrics.PARTICLE_RESAMPLES.increment();
+        }
+        int n = position.length;
+        if (totalWeight > 0.0) {
+            double spacing = totalWeight / n;
+            double pointer = rand.nextDouble() * spacing;
+            double cumulative = weight[0];
+            int source = 0;
+            for (int i = 0; i < n; i++) {
+                while (pointer >= cumulative && source < n - 1) {
+                    cumulative += weight[++source];
+                }
+                resampled[i] = position[source];
+                pointer += spacing;
+            }
+            int[] swap = position;
+            position = resampled;
+            resampled = swap;
+        }
+        Arrays.fill(weight, 1.0);
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * Streams one record per episode to a file, so that per-trial data outlives the printed averages.
+ * <p>
+ * Each record holds the agent's name and seed, the trial index, the start nodes of the agent and the
+ * target, the steps taken, whether the target was captured and the episode's wall time. Simulation
+ * threads fill a {@link Batch} of records in primitive columns and {@linkplain #submit(Batch) submit}
+ * it; a single writer thread encodes the batches and writes them through a buffered
+ * {@link FileChannel}. Simulation threads therefore never wait for the disk, unless the writer falls
+ * so far behind that every batch is in its queue. Batches are recycled once written, so memory stays
+ * bounded however many episodes a sweep runs.
+ * </p>
+ * <p>
+ * A file whose name ends in {@code .csv} is written as CSV with a header line; agent names are
+ * written as they are and should be plain ASCII without commas. Any other file gets
+ * the columnar binary format: a header ({@code "PRES"} magic and version), then row groups of up to
+ * {@value #ROW_GROUP} records of one agent and seed. A row group starts with its row count, the
+ * agent's name (length-prefixed UTF-8) and the seed, followed by one column after another: trial
+ * indices (long), agent starts and target starts (int), steps (int), captured flags (byte) and wall
+ * times in nanoseconds (long). Everything is little-endian.
+ * </p>
+ * <p>
+ * Records are written in the order their batches complete, which under several threads is not trial
+ * order; the trial column identifies each record.
+ * </p>
+ * <p>
+ * Episodes run in lockstep by the {@link BatchedEpisodeEngine} are interleaved with the other lanes
+ * of their batch, so their wall time is amortized: each round's duration is split evenly among the
+ * lanes that played it. It estimates the episode's own cost, comparable to one-at-a-time records,
+ * rather than the much longer time the episode's lane was occupied.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class ResultSink implements AutoCloseable {
+    static final int ROW_GROUP = 65536; // Largest number of records in a binary row group
+
+    private static final int MAGIC = 0x53455250;     // "PRES" in little-endian byte order
+    private static final int VERSION = 1;            // Layout version written to the header
+    private static final int QUEUE_CAPACITY = 4096;  // Batches waiting for the writer
+    private static final int WRITE_BUFFER = 1 << 20; // Bytes written to the channel at a time
+    private static final String CSV_HEADER = "agent,agent_seed,trial,agent_start,target_start,steps,captured,wall_ns\n";
+    private static final Batch END = new Batch(); // Tells the writer that no batches follow
+
+    private final FileChannel channel;
+    private final boolean csv;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private final BlockingQueue<Batch> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // Batches to write
+    private final ConcurrentLinkedQueue<Batch> recycled = new ConcurrentLinkedQueue<>(); // Written batches
+    private final Batch group = new Batch(); // Records of the binary row group being assembled
+    private final StringBuilder line = new StringBuilder(); // CSV line being encoded
+    private final Thread writer;
+    private volatile IOException failure; // First error of the writer thread
+
+    /**
+     * Opens a sink that writes to the given file, replacing it, and starts the writer thread.
+     *
+     * @param file the file to write, as CSV if its name ends in {@code .csv} and columnar otherwise
+     * @throws IOException if the file cannot be created
+     */
+    ResultSink(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.csv = file.getFileName().toString().endsWith(".csv");
+        if (csv) {
+            putAscii(CSV_HEADER);
+        } else {
+            buffer.putInt(MAGIC).putInt(VERSION);
+        }
+        this.writer = new Thread(this::drain, "result-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns an empty batch for the records of one agent and seed, reusing a written one if possible.
+     *
+     * @param agent     the agent's name
+     * @param agentSeed the seed the agent's trials are derived from
+     * @return the batch
+     */
+    Batch batch(String agent, long agentSeed) {
+        Batch batch = recycled.poll();
+        if (batch == null) {
+            batch = new Batch();
+        }
+        batch.agent = agent;
+        batch.agentSeed = agentSeed;
+        batch.size = 0;
+        return batch;
+    }
+
+    /**
+     * Hands a filled batch to the writer thread. The batch must not be used afterwards.
+     *
+     * @param batch the batch to write
+     * @throws UncheckedIOException if the writer has already failed
+     */
+    void submit(Batch batch) {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException(error);
+        }
+        try {
+            pending.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting results", e);
+        }
+    }
+
+    /**
+     * Writes every submitted batch, stops the writer thread and closes the file.
+     *
+     * @throws IOException if any record could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            pending.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the result sink", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The body of the writer thread: encodes batches until the end marker, then flushes. After an
+     * error the thread keeps taking batches without writing them, so that no submitter is left
+     * waiting on a full queue.
+     */
+    private void drain() {
+        try {
+            for (Batch batch = pending.take(); batch != END; batch = pending.take()) {
+                if (failure == null) {
+                    try {
+                        if (csv) {
+                            writeCsv(batch);
+                        } else {
+                            addToGroup(batch);
+                        }
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                recycled.add(batch);
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Result writer interrupted", e);
+            return;
+        }
+        if (failure == null) {
+            try {
+                if (!csv) {
+                    writeGroup();
+                }
+                flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Encodes a batch as CSV lines.
+     *
+     * @param batch the batch
+     * @throws IOException if the file cannot be written
+     */
+    private void writeCsv(Batch batch) throws IOException {
+        for (int i = 0; i < batch.size; i++) {
+            line.setLength(0);
+            line.append(batch.agent).append(',').append(batch.agentSeed).append(',').append(batch.trial[i])
+                    .append(',').append(batch.agentStart[i]).append(',').append(batch.targetStart[i])
+                    .append(',').append(batch.steps[i]).append(',').append(batch.captured[i])
+                    .append(',').append(batch.wallNanos[i]).append('\n');
+            putAscii(line);
+        }
+    }
+
+    /**
+     * Appends a batch to the row group being assembled, writing the group out first if the batch
+     * belongs to another agent or seed, and whenever the group is full.
+     *
+     * @param batch the batch
+     * @throws IOException if the file cannot be written
+     */
+    private void addToGroup(Batch batch) throws IOException {
+        if (group.size > 0 && (!group.agent.equals(batch.agent) || group.agentSeed != batch.agentSeed)) {
+            writeGroup();
+        }
+        group.agent = batch.agent;
+        group.agentSeed = batch.agentSeed;
+        for (int i = 0; i < batch.size; i++) {
+            group.add(batch.trial[i], batch.agentStart[i], batch.targetStart[i], batch.steps[i],
+                    batch.captured[i], batch.wallNanos[i]);
+            if (group.size == ROW_GROUP) {
+                writeGroup();
+            }
+        }
+    }
+
+    /**
+     * Writes out the row group being assembled, column by column, and empties it.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void writeGroup() throws IOException {
+        if (group.size == 0) {
+            return;
+        }
+        byte[] name = group.agent.getBytes(StandardCharsets.UTF_8);
+        reserve(Integer.BYTES + Short.BYTES + name.length + Long.BYTES);
+        buffer.putInt(group.size).putShort((short) name.length).put(name).putLong(group.agentSeed);
+        for (int i = 0; i < group.size; i++) {
+            reserve(Long.BYTES);
+            buffer.putLong(group.trial[i]);
+        }
+        for (int i = 0; i < group.size; i++) {
+            reserve(Integer.BYTES);
+            buffer.putInt(group.agentStart[i]);
+        }
+        for (int i = 0; i < group.size; i++) {
+            reserve(Integer.BYTES);
+            buffer.putInt(group.targetStart[i]);
+        }
+        for (int i = 0; i < group.size; i++) {
+            reserve(Integer.BYTES);
+            buffer.putInt(group.steps[i]);
+        }
+        for (int i = 0; i < group.size; i++) {
+            reserve(1);
+            buffer.put((byte) (group.captured[i] ? 1 : 0));
+        }
+        for (int i = 0; i < group.size; i++) {
+            reserve(Long.BYTES);
+            buffer.putLong(group.wallNanos[i]);
+        }
+        group.size = 0;
+    }
+
+    /**
+     * Appends ASCII text to the write buffer.
+     *
+     * @param text the text, which must be ASCII
+     * @throws IOException if the file cannot be written
+     */
+    private void putAscii(CharSequence text) throws IOException {
+        reserve(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Makes room for the given number of bytes in the write buffer, flushing it if needed.
+     *
+     * @param bytes the number of bytes about to be put, at most the buffer size
+     * @throws IOException if the file cannot be written
+     */
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes out the write buffer and clears it.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * A growable batch of episode records of one agent and seed, stored as primitive columns.
+     * A batch is filled by one simulation thread and then handed to the sink.
+     */
+    static final class Batch {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private String agent;    // Name of the agent of every record
+        private long agentSeed;  // Seed the agent's trials are derived from
+        private int size = 0;    // Number of records
+        private long[] trial = new long[INITIAL_CAPACITY];
+        private int[] agentStart = new int[INITIAL_CAPACITY];
+        private int[] targetStart = new int[INITIAL_CAPACITY];
+        private int[] steps = new int[INITIAL_CAPACITY];
+        private boolean[] captured = new boolean[INITIAL_CAPACITY];
+        private long[] wallNanos = new long[INITIAL_CAPACITY];
+
+        /**
+         * Appends the record of one episode.
+         *
+         * @param trial       the trial index
+         * @param agentStart  the agent's start node
+         * @param targetStart the target's start node
+         * @param steps       the steps the agent took
+         * @param captured    whether the agent captured the target within the budget
+         * @param wallNanos   the wall time of the episode in nanoseconds
+         */
+        void add(long trial, int agentStart, int targetStart, int steps, boolean captured, long wallNanos) {
+            if (size == this.trial.length) {
+                grow();
+            }
+            this.trial[size] = trial;
+            this.agentStart[size] = agentStart;
+            this.targetStart[size] = targetStart;
+            this.steps[size] = steps;
+            this.captured[size] = captured;
+            this.wallNanos[size] = wallNanos;
+            size++;
+        }
+
+        /**
+         * Doubles the capacity of every column.
+         */
+        private void grow() {
+            int capacity = trial.length * 2;
+            trial = Arrays.copyOf(trial, capacity);
+            agentStart = Arrays.copyOf(agentStart, capacity);
+            targetStart = Arrays.copyOf(targetStart, capacity);
+            steps = Arrays.copyOf(steps, capacity);
+            captured = Arrays.copyOf(captured, capacity);
+            wallNanos = Arrays.copyOf(wallNanos, capacity);
+        }
+    }
+}
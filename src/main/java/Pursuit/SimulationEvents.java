@@ -0,0 +1,200 @@
+/**
+ * Java Flight Recorder events for the phases of the simulation, so that they show up in JDK Mission
+ * Control next to GC, JIT and thread activity.
+ * <p>
+ * Every event is a duration event in the "Pursuit" category. Each has a default threshold, so only
+ * slow instances are written even when the event is enabled; both can be changed in a JFR settings
+ * file, for example {@code pursuit.Episode#threshold=0 ms}. When no recording is running, creating,
+ * timing and finishing an event is compiled down to a check of a flag.
+ * </p>
+ * <p>
+ * Each event follows the same pattern: {@code begin()} before the phase, then a {@code finish}
+ * method that ends the event and fills in its fields only when the event will actually be written.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+final class SimulationEvents {
+    private static final String CATEGORY = "Pursuit";
+
+    private SimulationEvents() {
+        // Event types only
+    }
+
+    /**
+     * One episode, from the first round to the capture or the cut-off. An episode run by the
+     * {@link BatchedEpisodeEngine} spans its lane's lifetime, during which the other lanes' episodes
+     * advance in lockstep with it, so its duration includes their work too.
+     */
+    @Name("pursuit.Episode")
+    @Label("Episode")
+    @Category(CATEGORY)
+    @Description("One pursuit episode of an agent against the target")
+    @Threshold("10 ms")
+    static final class EpisodeEvent extends Event {
+        @Label("Agent")
+        String agent;
+
+        @Label("Steps")
+        int steps;
+
+        @Label("Captured")
+        @Description("False if the episode was cut off by its budget")
+        boolean captured;
+
+        /**
+         * Ends the event and writes it if it passes the threshold.
+         *
+         * @param agent    the agent class name
+         * @param steps    the steps the agent took
+         * @param captured whether the agent captured the target
+         */
+        void finish(String agent, int steps, boolean captured) {
+            end();
+            if (shouldCommit()) {
+                this.agent = agent;
+                this.steps = steps;
+                this.captured = captured;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Construction of an environment's adjacency or of its distance table.
+     */
+    @Name("pursuit.EnvironmentBuild")
+    @Label("Environment Build")
+    @Category(CATEGORY)
+    @Description("Construction of an environment's adjacency or of its all-pairs distance table")
+    @Threshold("10 ms")
+    static final class EnvironmentBuildEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Nodes")
+        int nodes;
+
+        /**
+         * Ends the event and writes it if it passes the threshold.
+         *
+         * @param phase what was built
+         * @param nodes the number of nodes
+         */
+        void finish(String phase, int nodes) {
+            end();
+            if (shouldCommit()) {
+                this.phase = phase;
+                this.nodes = nodes;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One whole-graph update of a belief state.
+     */
+    @Name("pursuit.BeliefUpdate")
+    @Label("Belief Update")
+    @Category(CATEGORY)
+    @Description("A pass of a belief state over every node")
+    @Threshold("1 ms")
+    static final class BeliefUpdateEvent extends Event {
+        @Label("Kind")
+        String kind;
+
+        @Label("Nodes")
+        int nodes;
+
+        /**
+         * Ends the event and writes it if it passes the threshold.
+         *
+         * @param kind  the update performed
+         * @param nodes the number of nodes
+         */
+        void finish(String kind, int nodes) {
+            end();
+            if (shouldCommit()) {
+                this.kind = kind;
+                this.nodes = nodes;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One predict, weight and resample step of a particle filter.
+     */
+    @Name("pursuit.ParticleFilterStep")
+    @Label("Particle Filter Step")
+    @Category(CATEGORY)
+    @Description("Predict, weight and resample of every particle")
+    @Threshold("1 ms")
+    static final class ParticleFilterStepEvent extends Event {
+        @Label("Particles")
+        int particles;
+
+        /**
+         * Ends the event and writes it if it passes the threshold.
+         *
+         * @param particles the number of particles
+         */
+        void finish(int particles) {
+            end();
+            if (shouldCommit()) {
+                this.particles = particles;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One shortest-path search.
+     */
+    @Name("pursuit.Pathfinding")
+    @Label("Pathfinding")
+    @Category(CATEGORY)
+    @Description("A breadth-first or Dijkstra search between two nodes")
+    @Threshold("1 ms")
+    static final class PathfindingEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("From")
+        int from;
+
+        @Label("To")
+        int to;
+
+        @Label("Found")
+        boolean found;
+
+        /**
+         * Ends the event and writes it if it passes the threshold.
+         *
+         * @param algorithm the search algorithm
+         * @param from      the start node
+         * @param to        the destination node
+         * @param found     whether the destination was reached
+         */
+        void finish(String algorithm, int from, int to, boolean found) {
+            end();
+            if (shouldCommit()) {
+                this.algorithm = algorithm;
+                this.from = from;
+                this.to = to;
+                this.found = found;
+                commit();
+            }
+        }
+    }
+}
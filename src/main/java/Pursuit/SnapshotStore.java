@@ -0,0 +1,122 @@
+/**
+ * A directory of environment snapshots, each stored once under its digest and optionally known by
+ * one or more names.
+ * <p>
+ * A snapshot is a binary CSR file written by {@link GraphFiles}, named after the graph's SHA-256
+ * {@linkplain GraphFiles#digest(Environment) digest}, so saving the same graph twice stores it once,
+ * and two different graphs never share a file. The short CRC-32C fingerprint is not used for naming:
+ * two graphs whose checksums collide would otherwise be stored as one. Names are kept in a small
+ * properties index in the same directory; saving under an existing name points the name at the new
+ * graph. Loading accepts either a name or a digest, maps the file and verifies its checksum, so a
+ * sweep can reuse a graph across processes without regenerating it and be sure it is the graph the
+ * name was recorded with.
+ * </p>
+ * <p>
+ * Files are written to a temporary name and then moved into place, so another process reading the
+ * directory never sees a half-written snapshot or index.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+class SnapshotStore {
+    private static final String INDEX = "names.properties"; // Maps snapshot names to digests
+
+    private final Path directory;
+
+    /**
+     * Constructs a store over the given directory, which is created when the first snapshot is saved.
+     *
+     * @param directory the directory holding the snapshots
+     */
+    SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Saves an environment, unless a snapshot of the same graph is already stored, and records it
+     * under the given name.
+     *
+     * @param environment the environment to save
+     * @param name        the name to record the snapshot under, or null to store it by digest only
+     * @return the digest of the environment
+     * @throws IOException if the snapshot or the index cannot be written
+     */
+    synchronized String save(Environment environment, String name) throws IOException {
+        Files.createDirectories(directory);
+        String digest = GraphFiles.digest(environment);
+        Path file = fileOf(digest);
+        if (!Files.exists(file)) {
+            Path temporary = Files.createTempFile(directory, digest, ".tmp");
+            GraphFiles.write(environment, temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (name != null) {
+            Properties names = readIndex();
+            names.setProperty(name, digest);
+            Path temporary = Files.createTempFile(directory, "names", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                names.store(writer, "Snapshot names and the digests they refer to");
+            }
+            Files.move(temporary, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        return digest;
+    }
+
+    /**
+     * Loads a snapshot by name or by digest. A name takes precedence over a digest that happens to
+     * be spelled the same way.
+     *
+     * @param nameOrDigest the name the snapshot was saved under, or its digest
+     * @return the environment, reading its adjacency from the mapped snapshot
+     * @throws IOException if no such snapshot exists, or the file cannot be read or fails its checksum
+     */
+    Environment load(String nameOrDigest) throws IOException {
+        String digest = readIndex().getProperty(nameOrDigest, nameOrDigest);
+        Path file = fileOf(digest);
+        if (!Files.exists(file)) {
+            throw new NoSuchFileException(file.toString(), null,
+                    "no snapshot named \"" + nameOrDigest + "\" or with that digest in " + directory);
+        }
+        return GraphFiles.map(file);
+    }
+
+    /**
+     * Returns the file a snapshot with the given digest is stored in.
+     *
+     * @param digest the digest
+     * @return the snapshot file
+     */
+    private Path fileOf(String digest) {
+        return directory.resolve(digest + GraphFiles.BINARY_SUFFIX);
+    }
+
+    /**
+     * Reads the name index, which is empty if no name has been recorded yet.
+     *
+     * @return the names and their digests
+     * @throws IOException if the index exists but cannot be read
+     */
+    private Properties readIndex() throws IOException {
+        Properties names = new Properties();
+        Path index = directory.resolve(INDEX);
+        if (Files.exists(index)) {
+            try (Reader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+                names.load(reader);
+            }
+        }
+        return names;
+    }
+}
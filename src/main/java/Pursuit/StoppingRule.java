@@ -0,0 +1,81 @@
+/**
+ * A sequential stopping rule that decides how many trials an agent needs.
+ * <p>
+ * Trials run in batches. After each batch the rule computes the normal-approximation 95% confidence
+ * interval of the mean number of rounds to the capture, {@code mean +- 1.96 * sd / sqrt(n)}, and
+ * stops once the interval is no wider than the target width, or once the maximum number of trials
+ * has run. Agents whose capture time varies little stop after the first batch; noisy agents keep
+ * going.
+ * </p>
+ * <p>
+ * The interval is measured in rounds, the time axis of {@link CaptureStats}, rather than in agent
+ * steps: an agent that never steps still spends rounds, so its interval reflects how long its
+ * episodes really ran. The interval is computed over the captured trials only. A run in which every
+ * trial so far was censored by the {@link EpisodeBudget} keeps going until the maximum, and so does
+ * a run whose captures all took the same number of rounds, since a spread of zero says nothing about
+ * convergence.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+class StoppingRule {
+    static final double Z_95 = 1.959963984540054; // Two-sided 95% quantile of the standard normal
+
+    private final double width;     // Target full width of the confidence interval, in rounds
+    private final int batchSize;    // Trials run between two checks
+    private final long maxTrials;   // Trials after which the rule stops regardless
+
+    /**
+     * Constructs a stopping rule.
+     *
+     * @param width     the target full width of the 95% confidence interval, in rounds
+     * @param batchSize the number of trials run between two checks, and the minimum number of trials
+     * @param maxTrials the number of trials after which to stop regardless of the width
+     * @throws IllegalArgumentException if a parameter is not positive
+     */
+    StoppingRule(double width, int batchSize, long maxTrials) {
+        if (!(width > 0) || batchSize < 1 || maxTrials < 1) {
+            throw new IllegalArgumentException("Stopping rule needs a positive width, batch size and maximum, got "
+                    + width + ", " + batchSize + " and " + maxTrials);
+        }
+        this.width = width;
+        this.batchSize = batchSize;
+        this.maxTrials = maxTrials;
+    }
+
+    /**
+     * Returns whether the trials run so far are enough.
+     *
+     * @param stats the statistics of the trials run so far
+     * @param done  the number of trials run so far, captured or censored
+     * @return true if no more trials should be run
+     */
+    boolean isSatisfied(CaptureStats stats, long done) {
+        if (done >= maxTrials) {
+            return true;
+        }
+        return done > 0 && stats.count() >= 2 && stats.standardDeviation() > 0 && 2 * halfWidth(stats) <= width;
+    }
+
+    /**
+     * Returns the size of the next batch, which never runs past the maximum.
+     *
+     * @param done the number of trials run so far
+     * @return the number of trials to run next
+     */
+    int nextBatch(long done) {
+        return (int) Math.min(batchSize, maxTrials - done);
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the mean.
+     *
+     * @param stats the statistics of the trials
+     * @return the half-width in rounds, or NaN if fewer than two trials were captured
+     */
+    static double halfWidth(CaptureStats stats) {
+        return Z_95 * stats.standardDeviation() / Math.sqrt(stats.count());
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Runs every configuration of a {@link SweepGrid} and reports the outcome and throughput of each.
+ * <p>
+ * The grid comes from {@code --grid=FILE}, a properties file, and any of its keys can also be given
+ * (or overridden) on the command line, for example
+ * {@code --nodes=40,400 --agents=Agent2,Agent7 --particles=250,1000 --trials=200}. The environment of
+ * each graph size is generated once, from the root seed exactly as {@link Main} generates it, and shared
+ * by every job of that size; {@code --seed}, {@code --topology}, {@code --max-rounds},
+ * {@code --time-budget-ms}, {@code --crn} and {@code --results} mean the same as for {@link Main}.
+ * </p>
+ * <p>
+ * Each job runs its trials one after another on a single worker of a work-stealing
+ * {@link ForkJoinPool} of {@code --threads=N} workers (every core by default). Jobs are submitted in
+ * decreasing order of their estimated cost, so the long jobs start first and the short ones fill in
+ * around them, instead of the sweep ending on one long job that happened to start last. An idle
+ * worker steals the next waiting job.
+ * </p>
+ * <p>
+ * Once every job is done, the report lists the configurations in grid order with their mean steps
+ * and rounds, censored trials, wall time and trials per second. Wall times are measured per job, so
+ * jobs that ran side by side on a busy machine report lower throughput than they would alone. Every
+ * configuration of one agent plays the same trials, so the particle counts of Agent7 are compared on
+ * equal terms.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+class Sweep {
+
+    public static void main(String[] args) throws IOException {
+        // Read the grid, letting command-line options override the file
+        Properties definition = new Properties();
+        String gridFile = Main.option(args, "grid", null);
+        if (gridFile != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(gridFile), StandardCharsets.UTF_8)) {
+                definition.load(reader);
+            }
+        }
+        for (String key : SweepGrid.KEYS) {
+            String value = Main.option(args, key, null);
+            if (value != null) {
+                definition.setProperty(key, value);
+            }
+        }
+        SweepGrid grid = SweepGrid.parse(definition);
+
+        long seed = Long.parseLong(Main.option(args, "seed", "42")); // Root seed for every random stream
+        int threads = Integer.parseInt(Main.option(args, "threads", "0")); // Pool workers, 0 uses every core
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        EpisodeBudget budget = EpisodeBudget.of( // Per-episode limits, 0 means unlimited
+                Long.parseLong(Main.option(args, "max-rounds", "0")),
+                Long.parseLong(Main.option(args, "time-budget-ms", "0")));
+        boolean commonTrials = Main.flag(args, "crn"); // Every agent plays the same trials
+        String topology = Main.option(args, "topology", null); // Graph family to generate, null for the default loop
+        String resultsFile = Main.option(args, "results", null); // File receiving a record of every episode
+
+        // Generate one environment per graph size
+        Map<Integer, Environment> environments = new HashMap<>();
+        for (int nodeCount : grid.nodeCounts()) {
+            if (!environments.containsKey(nodeCount)) {
+                Environment env = Main.generate(topology, nodeCount, seed);
+                environments.put(nodeCount, env);
+                System.out.println("Environment " + GraphFiles.fingerprint(env) + ": " + env.getNodeCount()
+                        + " nodes, " + env.getNeighborCount() / 2 + " edges");
+            }
+        }
+
+        List<SweepGrid.Job> jobs = grid.jobs();
+        CaptureStats[] stats = new CaptureStats[jobs.size()];
+        long[] wallNanos = new long[jobs.size()];
+        long sweepStart = System.nanoTime();
+        try (ResultSink results = resultsFile != null ? new ResultSink(Path.of(resultsFile)) : null) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                // Submit the biggest jobs first; each task fills only its own slot of the arrays
+                Integer[] order = new Integer[jobs.size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                double[] cost = new double[jobs.size()];
+                for (int i = 0; i < cost.length; i++) {
+                    cost[i] = jobs.get(i).cost(environments.get(jobs.get(i).nodeCount()));
+                }
+                Arrays.sort(order, Comparator.comparingDouble((Integer i) -> cost[i]).reversed());
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                for (int i : order) {
+                    tasks.add(pool.submit(() -> {
+                        SweepGrid.Job job = jobs.get(i);
+                        long agentSeed = commonTrials ? Seeds.derive(seed, "Trials") : Seeds.derive(seed, job.agent());
+                        long start = System.nanoTime();
+                        try (TrialRunner runner = new TrialRunner(environments.get(job.nodeCount()), 1, budget, results)) {
+                            stats[i] = runner.captureStats(job.label(), job.factory(), agentSeed, job.trials());
+                        }
+                        wallNanos[i] = System.nanoTime() - start;
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        double sweepSeconds = (System.nanoTime() - sweepStart) / 1e9;
+
+        // Print the report in grid order
+        System.out.printf(Locale.ROOT, "%d configurations on %d threads in %.2f s%n", jobs.size(), threads, sweepSeconds);
+        System.out.printf(Locale.ROOT, "%-36s %8s %11s %12s %9s %9s %10s%n",
+                "configuration", "trials", "mean steps", "mean rounds", "censored", "wall s", "trials/s");
+        long totalTrials = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            long trials = stats[i].count() + stats[i].censored();
+            double seconds = wallNanos[i] / 1e9;
+            totalTrials += trials;
+            System.out.printf(Locale.ROOT, "%-36s %8d %11.2f %12.2f %9d %9.3f %10.1f%n", jobs.get(i).label(),
+                    trials, stats[i].meanSteps(), stats[i].mean(), stats[i].censored(), seconds, trials / seconds);
+        }
+        System.out.printf(Locale.ROOT, "%d trials, %.1f trials/s overall%n", totalTrials, totalTrials / sweepSeconds);
+    }
+}
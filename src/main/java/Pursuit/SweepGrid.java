@@ -0,0 +1,240 @@
+/**
+ * A declarative grid of simulation configurations, expanded into one {@link Job} per point.
+ * <p>
+ * A grid is read from properties, either a file or command-line options, whose values are
+ * comma-separated lists:
+ * </p>
+ * <pre>
+ * nodes     = 40, 400, 4000     # graph sizes (40 by default)
+ * agents    = Agent2, Agent7    # agent subset (every agent by default)
+ * particles = 250, 1000         # Agent7 particle counts (Agent7's default by default)
+ * trials    = 200               # trials per configuration (100 by default)
+ * </pre>
+ * <p>
+ * The grid is the cross product of the graph sizes and the agents, where Agent7 is further split by
+ * particle count; the particle counts do not multiply the other agents. Each job carries a rough cost
+ * estimate, used only to schedule the biggest jobs first: the trials times the graph size, times the
+ * per-step work of the agent. That work grows with the graph for the belief-state agents, for
+ * Agent7's route search and, once the graph is too large for a {@link DistanceTable}, for the
+ * breadth-first search Agent2 and Agent5 then run on every step; Agent7 also pays for its particles.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+class SweepGrid {
+    static final String[] KEYS = {"nodes", "agents", "particles", "trials"}; // Properties that define the grid
+
+    private final int[] nodeCounts;     // Graph sizes
+    private final List<String> agents;  // Agent names, in evaluation order
+    private final int[] particleCounts; // Particle counts of Agent7
+    private final int trials;           // Trials per configuration
+
+    /**
+     * Constructs a grid.
+     *
+     * @param nodeCounts     the graph sizes
+     * @param agents         the names of the agents to run
+     * @param particleCounts the particle counts to run Agent7 with
+     * @param trials         the number of trials per configuration
+     * @throws IllegalArgumentException if a list is empty, an agent is unknown or a count is not positive
+     */
+    SweepGrid(int[] nodeCounts, List<String> agents, int[] particleCounts, int trials) {
+        if (nodeCounts.length == 0 || agents.isEmpty() || particleCounts.length == 0) {
+            throw new IllegalArgumentException("Sweep grid needs at least one graph size, agent and particle count");
+        }
+        for (String agent : agents) {
+            AgentFactory.forName(agent);
+        }
+        for (int count : particleCounts) {
+            if (count < 1) {
+                throw new IllegalArgumentException("Particle count must be positive, got " + count);
+            }
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("Trial count must be positive, got " + trials);
+        }
+        this.nodeCounts = nodeCounts;
+        this.agents = List.copyOf(agents);
+        this.particleCounts = particleCounts;
+        this.trials = trials;
+    }
+
+    /**
+     * Reads a grid from properties, using the defaults for missing keys.
+     *
+     * @param properties the grid definition
+     * @return the grid
+     * @throws IllegalArgumentException if a value is malformed or out of range
+     */
+    static SweepGrid parse(Properties properties) {
+        String agents = properties.getProperty("agents");
+        return new SweepGrid(
+                ints(properties.getProperty("nodes", "40")),
+                agents != null ? strings(agents) : new ArrayList<>(AgentFactory.all().keySet()),
+                ints(properties.getProperty("particles", String.valueOf(Agent7.DEFAULT_PARTICLES))),
+                Integer.parseInt(properties.getProperty("trials", "100").trim()));
+    }
+
+    /**
+     * Returns the graph sizes of the grid.
+     *
+     * @return the node counts, in the order given
+     */
+    int[] nodeCounts() {
+        return nodeCounts.clone();
+    }
+
+    /**
+     * Expands the grid into its jobs, in grid order: by graph size, then agent, then particle count.
+     *
+     * @return the jobs
+     */
+    List<Job> jobs() {
+        Map<String, AgentFactory> factories = AgentFactory.all();
+        List<Job> jobs = new ArrayList<>();
+        for (int nodeCount : nodeCounts) {
+            for (String agent : agents) {
+                if (agent.equals("Agent7")) {
+                    for (int particles : particleCounts) {
+                        jobs.add(new Job(nodeCount, agent, particles, trials,
+                                (environment, startNode, rand) -> new Agent7(environment, startNode, rand, particles)));
+                    }
+                } else {
+                    jobs.add(new Job(nodeCount, agent, 0, trials, factories.get(agent)));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Parses a comma-separated list of integers.
+     *
+     * @param list the list
+     * @return the integers
+     */
+    private static int[] ints(String list) {
+        return strings(list).stream().mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Splits a comma-separated list, trimming each entry and dropping empty ones.
+     *
+     * @param list the list
+     * @return the entries
+     */
+    private static List<String> strings(String list) {
+        List<String> entries = new ArrayList<>();
+        for (String entry : list.split(",")) {
+            if (!entry.isBlank()) {
+                entries.add(entry.trim());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * One point of the grid: an agent configuration run for a number of trials on a graph size.
+     */
+    static final class Job {
+        private final int nodeCount;    // Size of the graph
+        private final String agent;     // Agent name, which also selects the agent's trials
+        private final int particles;    // Particle count of Agent7, 0 for other agents
+        private final int trials;       // Trials to run
+        private final AgentFactory factory;
+
+        /**
+         * Constructs a job.
+         *
+         * @param nodeCount the size of the graph
+         * @param agent     the agent name
+         * @param particles the particle count of Agent7, or 0 for other agents
+         * @param trials    the number of trials to run
+         * @param factory   creates the configured agent
+         */
+        Job(int nodeCount, String agent, int particles, int trials, AgentFactory factory) {
+            this.nodeCount = nodeCount;
+            this.agent = agent;
+            this.particles = particles;
+            this.trials = trials;
+            this.factory = factory;
+        }
+
+        /**
+         * Returns the size of the graph the job runs on.
+         *
+         * @return the node count
+         */
+        int nodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * Returns the agent's name, without its parameters.
+         *
+         * @return the agent name
+         */
+        String agent() {
+            return agent;
+        }
+
+        /**
+         * Returns the number of trials to run.
+         *
+         * @return the trial count
+         */
+        int trials() {
+            return trials;
+        }
+
+        /**
+         * Returns the factory of the configured agent.
+         *
+         * @return the agent factory
+         */
+        AgentFactory factory() {
+            return factory;
+        }
+
+        /**
+         * Returns the job's label, such as {@code Agent7[nodes=400;particles=500]}. The label contains
+         * no commas, so it can be recorded as the agent name of a CSV {@link ResultSink}.
+         *
+         * @return the label
+         */
+        String label() {
+            return agent + "[nodes=" + nodeCount + (particles > 0 ? ";particles=" + particles : "") + "]";
+        }
+
+        /**
+         * Returns a rough estimate of the job's work, comparable only between jobs of one sweep.
+         *
+         * @param environment the environment the job runs on
+         * @return the estimated cost
+         */
+        double cost(Environment environment) {
+            // Per-step work in node visits: a search is O(V) unless the distance table answers it
+            double search = environment.hasDistanceTable() ? 1 : nodeCount;
+            double perStep;
+            if (agent.equals("Agent0") || agent.equals("Agent1")) {
+                perStep = 1;
+            } else if (agent.equals("Agent2")) {
+                perStep = search;
+            } else if (agent.equals("Agent5")) {
+                perStep = nodeCount + search; // Belief update and path search
+            } else if (agent.equals("Agent7")) {
+                perStep = 2.0 * nodeCount + particles; // Belief update, route search and particles
+            } else {
+                perStep = nodeCount; // Belief update
+            }
+            return (double) trials * nodeCount * perStep;
+        }
+    }
+}
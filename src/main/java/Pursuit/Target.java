@@ -8,28 +8,42 @@
  */
 package Pursuit;
 
-import java.util.*;
+import java.util.random.RandomGenerator;
 
 class Target {
     private int currentNode;// The current node where the target is located
-    private Random rand = new Random(); // Random object used to select the next move
+    private RandomGenerator rand; // Random stream used to select the next move, replaced on reset
     private int stepsTaken = 0; // Add step counter
 
     private Environment environment; // The environment in which the target is moving
 
     /**
-     * Constructs a Target with the given environment and starting node.
+     * Constructs a Target with the given environment, starting node and random stream.
      *
      * @param environment the environment in which the target will move
      * @param startNode   the starting node for the target
+     * @param rand        the random number generator used to select each move
      */
-    public Target(Environment environment, int startNode) {
+    public Target(Environment environment, int startNode, RandomGenerator rand) {
         this.currentNode = startNode;
         this.environment = environment;
+        this.rand = rand;
 
 
     }
 
+    /**
+     * Reinitializes the target in place for a new trial, as if it had just been constructed.
+     *
+     * @param startNode the new starting node for the target
+     * @param rand      the random number generator for the new trial
+     */
+    public void reset(int startNode, RandomGenerator rand) {
+        this.currentNode = startNode;
+        this.rand = rand;
+        this.stepsTaken = 0;
+    }
+
     /**
      * Moves the target to a randomly selected neighboring node.
      * Increments the step counter every time the target moves.
@@ -37,8 +51,7 @@ class Target {
      * @param env the environment in which the target is moving
      */
     public void move(Environment env) {
-        List<Integer> neighbors = (List<Integer>) env.getNeighbors(currentNode);
-        currentNode = neighbors.get(rand.nextInt(neighbors.size()));
+        currentNode = env.getNeighbor(currentNode, rand.nextInt(env.getDegree(currentNode)));
         stepsTaken++; // Increment the step counter every time the target moves
     }
 
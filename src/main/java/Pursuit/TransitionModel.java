@@ -0,0 +1,149 @@
+/**
+ * The learned transition model of {@link Agent7}'s hidden Markov model, stored sparsely along the
+ * graph's edges.
+ * <p>
+ * The target can only stay put or move to a neighbor, so row {@code i} of the model has one entry for
+ * {@code i} itself followed by one entry per neighbor, in the environment's adjacency order. The rows
+ * are kept in compressed sparse row (CSR) form like {@link Environment}'s adjacency: the entries of
+ * row {@code i} occupy slots {@code offsets[i]} to {@code offsets[i + 1] - 1} of the {@code columns},
+ * {@code probability} and {@code counts} arrays. Memory and a full forward update of the belief
+ * ({@link BeliefState#propagateAndNormalize(TransitionModel)}) are O(V + E) instead of the O(V^2) of a
+ * dense matrix.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+
+class TransitionModel {
+    static final double STAY_PROBABILITY = 0.025; // Initial probability of the target staying put
+
+    private final int nodeCount;        // Nodes are numbered from 1 to nodeCount
+    private final int[] offsets;        // First slot of each row, indexed by node
+    private final int[] columns;        // Destination node of each slot
+    private final double[] probability; // Transition probability of each slot
+    private final int[] counts;         // Times each transition has been observed
+    private final double moveProbability; // Initial probability of each neighbor slot
+
+    /**
+     * Constructs the initial model over the given environment: a small probability of staying put
+     * and the rest split evenly over the neighbors of the busiest node.
+     *
+     * @param environment the environment whose edges the model follows
+     */
+    TransitionModel(Environment environment) {
+        nodeCount = environment.getNodeCount();
+        offsets = new int[nodeCount + 2];
+        for (int i = 1; i <= nodeCount; i++) {
+            offsets[i + 1] = offsets[i] + environment.getDegree(i) + 1;
+        }
+        columns = new int[offsets[nodeCount + 1]];
+        probability = new double[columns.length];
+        counts = new int[columns.length];
+
+        moveProbability = (1.0 - STAY_PROBABILITY) / Math.max(environment.getMaxDegree(), 1);
+        for (int i = 1; i <= nodeCount; i++) {
+            int slot = offsets[i];
+            columns[slot] = i;
+            for (int k = 0; k < environment.getDegree(i); k++) {
+                columns[slot + 1 + k] = environment.getNeighbor(i, k);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Forgets every observed transition and restores the initial probabilities, reusing the arrays.
+     */
+    void reset() {
+        Arrays.fill(probability, moveProbability);
+        for (int i = 1; i <= nodeCount; i++) {
+            probability[offsets[i]] = STAY_PROBABILITY;
+        }
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Returns the number of nodes in the model.
+     *
+     * @return the node count
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the first slot of the given row.
+     *
+     * @param row the source node
+     * @return the slot index
+     */
+    int rowStart(int row) {
+        return offsets[row];
+    }
+
+    /**
+     * Returns one past the last slot of the given row.
+     *
+     * @param row the source node
+     * @return the slot index
+     */
+    int rowEnd(int row) {
+        return offsets[row + 1];
+    }
+
+    /**
+     * Returns the destination node of a slot.
+     *
+     * @param slot the slot index
+     * @return the destination node
+     */
+    int column(int slot) {
+        return columns[slot];
+    }
+
+    /**
+     * Returns the transition probability of a slot.
+     *
+     * @param slot the slot index
+     * @return the probability of moving along the slot's transition
+     */
+    double probability(int slot) {
+        return probability[slot];
+    }
+
+    /**
+     * Records one observed transition and updates the probabilities of its row.
+     * Transitions that do not follow an edge cannot be represented and are ignored.
+     *
+     * @param from the node the target was last known at
+     * @param to   the node observed now
+     * @return true if any probability of the row changed
+     */
+    boolean observe(int from, int to) {
+        int observed = -1;
+        for (int slot = offsets[from], end = offsets[from + 1]; slot < end; slot++) {
+            if (columns[slot] == to) {
+                observed = slot;
+                break;
+            }
+        }
+        if (observed < 0) {
+            return false;
+        }
+        counts[observed]++;
+
+        boolean rowChanged = false;
+        for (int slot = offsets[from], end = offsets[from + 1]; slot < end; slot++) {
+            int totalCount = counts[slot];
+            if (totalCount > 0) {
+                double updated = (double) counts[slot] / totalCount;
+                rowChanged |= probability[slot] != updated;
+                probability[slot] = updated;
+            }
+        }
+        return rowChanged;
+    }
+}
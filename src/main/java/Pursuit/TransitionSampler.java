@@ -0,0 +1,148 @@
+/**
+ * Samples next positions from the rows of a {@link TransitionModel} in O(1) using Walker/Vose alias tables.
+ * <p>
+ * Each row gets its own alias table over the row's entries, built the first time the row is sampled.
+ * The tables are stored in arrays aligned slot for slot with the model's CSR layout, so building one
+ * never allocates. When the owner changes a row of the model it calls {@link #invalidate(int)}, and
+ * only that row is rebuilt, on its next use. Rows that no particle ever visits never get a table.
+ * </p>
+ * <p>
+ * Drawing from a table takes one bounded integer and one uniform double, regardless of how many
+ * entries the row has, instead of summing the row and then walking its cumulative distribution.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+class TransitionSampler {
+    private final TransitionModel model; // The model being sampled, owned by the caller
+    private final double[] keep;         // Chance of keeping each slot's own outcome
+    private final int[] alias;           // Slot to use otherwise
+    private final boolean[] built;       // Rows whose table matches the model
+
+    // Scratch space for building a table, sized for the widest possible row
+    private final double[] scaled;
+    private final int[] small;
+    private final int[] large;
+
+    /**
+     * Constructs a sampler over the given model.
+     *
+     * @param model the transition model; rows need not be normalized
+     */
+    TransitionSampler(TransitionModel model) {
+        this.model = model;
+        int slots = model.rowEnd(model.getNodeCount());
+        this.keep = new double[slots];
+        this.alias = new int[slots];
+        this.built = new boolean[model.getNodeCount() + 1];
+        int widest = 0;
+        for (int i = 1; i <= model.getNodeCount(); i++) {
+            widest = Math.max(widest, model.rowEnd(i) - model.rowStart(i));
+        }
+        this.scaled = new double[widest];
+        this.small = new int[widest];
+        this.large = new int[widest];
+    }
+
+    /**
+     * Marks a row as changed, so that its table is rebuilt before it is sampled again.
+     *
+     * @param row the row that changed
+     */
+    void invalidate(int row) {
+        built[row] = false;
+    }
+
+    /**
+     * Marks every row as changed, for when the whole model has been reset.
+     */
+    void invalidateAll() {
+        Arrays.fill(built, false);
+    }
+
+    /**
+     * Draws a next position from the given row.
+     *
+     * @param row  the current position
+     * @param rand the random number generator
+     * @return the sampled next position, or {@code row} itself if the row has no probability mass
+     */
+    int sample(int row, RandomGenerator rand) {
+        if (!built[row]) {
+            build(row);
+        }
+        int start = model.rowStart(row);
+        int width = model.rowEnd(row) - start;
+        if (width == 0) {
+            return row;
+        }
+        int slot = start + rand.nextInt(width);
+        return model.column(rand.nextDouble() < keep[slot] ? slot : alias[slot]);
+    }
+
+    /**
+     * Builds the alias table of one row with Vose's method.
+     *
+     * @param row the row to build
+     */
+    private void build(int row) {
+        int start = model.rowStart(row);
+        int width = model.rowEnd(row) - start;
+        built[row] = true;
+
+        double total = 0.0;
+        for (int k = 0; k < width; k++) {
+            total += model.probability(start + k);
+        }
+        if (total <= 0.0) {
+            // No mass at all: every slot keeps itself, so the row samples uniformly
+            for (int k = 0; k < width; k++) {
+                keep[start + k] = 1.0;
+                alias[start + k] = start + k;
+            }
+            return;
+        }
+
+        // Scale every weight so that the average slot holds exactly 1
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int k = 0; k < width; k++) {
+            scaled[k] = model.probability(start + k) * width / total;
+            if (scaled[k] < 1.0) {
+                small[smallCount++] = k;
+            } else {
+                large[largeCount++] = k;
+            }
+        }
+
+        // Pair each under-full slot with an over-full one that tops it up
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            keep[start + less] = scaled[less];
+            alias[start + less] = start + more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full up to rounding error
+        while (largeCount > 0) {
+            int full = large[--largeCount];
+            keep[start + full] = 1.0;
+            alias[start + full] = start + full;
+        }
+        while (smallCount > 0) {
+            int full = small[--smallCount];
+            keep[start + full] = 1.0;
+            alias[start + full] = start + full;
+        }
+    }
+}
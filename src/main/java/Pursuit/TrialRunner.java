@@ -0,0 +1,405 @@
+/**
+ * Runs independent pursuit trials, either on the calling thread or spread across a pool of workers.
+ * <p>
+ * Every trial starts from a newly set up agent and target, while all trials share one immutable
+ * {@link Environment}. Agents and targets are pooled in {@link TrialSlot}s: a worker takes an idle slot
+ * for each chunk and resets its agent in place, so agent state is allocated once per worker rather
+ * than once per trial.
+ * Trials are grouped into fixed-size chunks that are submitted to a {@link ForkJoinPool}; each chunk
+ * records the steps of its trials in its own {@link CaptureStats}, and the chunk statistics are
+ * merged in trial order. The aggregated result therefore does not depend on the number of threads.
+ * </p>
+ * <p>
+ * Each trial draws its start nodes and the random streams of its target and agent from a generator
+ * keyed by the agent's seed and the trial index (see {@link Seeds}), so sequential and parallel runs
+ * replay exactly the same trials. The target walks on a stream of its own, which no agent decision
+ * touches, so runs of different agents under the same seed face the same start nodes and the same
+ * target path in every trial, however long each agent takes to capture it.
+ * </p>
+ * <p>
+ * An optional {@link EpisodeBudget} cuts off episodes that run too long; they are recorded as
+ * censored rather than captured.
+ * </p>
+ * <p>
+ * An optional {@link ResultSink} receives a record of every episode. Each chunk fills one batch of
+ * records and submits it when the chunk is done, so the writing happens on the sink's own thread.
+ * </p>
+ * <p>
+ * Agents that provide a {@link BatchMove} can instead be run through a {@link BatchedEpisodeEngine},
+ * which advances many episodes in lockstep within each chunk. The trials and their totals are the same.
+ * </p>
+ * <p>
+ * Instead of a fixed number of trials, a {@link StoppingRule} can decide how many to run: trials
+ * then run in batches until the confidence interval of the mean is narrow enough. Batches are
+ * contiguous ranges of trial indices, so the trials played and the stopping point are also
+ * independent of the number of threads.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+class TrialRunner implements AutoCloseable {
+    private static final int CHUNK_SIZE = 16; // Number of trials handed to a worker at a time
+    private static final int REFILLS_PER_CHUNK = 4; // Batched chunks hold this many trials per lane
+
+    private final Environment environment;
+    private final EpisodeBudget budget; // Limits of every episode
+    private final ResultSink results; // Receives a record of every episode, null if none are kept
+    private final ForkJoinPool pool; // Null when trials run on the calling thread
+
+    /**
+     * Constructs a TrialRunner for the given environment whose episodes run until the capture.
+     *
+     * @param environment the environment shared by all trials
+     * @param threads     the number of worker threads; 1 runs trials on the calling thread
+     */
+    public TrialRunner(Environment environment, int threads) {
+        this(environment, threads, EpisodeBudget.UNLIMITED);
+    }
+
+    /**
+     * Constructs a TrialRunner for the given environment whose episodes are cut off at the given budget.
+     *
+     * @param environment the environment shared by all trials
+     * @param threads     the number of worker threads; 1 runs trials on the calling thread
+     * @param budget      the limits of every episode
+     */
+    public TrialRunner(Environment environment, int threads, EpisodeBudget budget) {
+        this(environment, threads, budget, null);
+    }
+
+    /**
+     * Constructs a TrialRunner whose episodes are cut off at the given budget and recorded in the
+     * given sink.
+     *
+     * @param environment the environment shared by all trials
+     * @param threads     the number of worker threads; 1 runs trials on the calling thread
+     * @param budget      the limits of every episode
+     * @param results     receives a record of every episode, or null to keep only the statistics
+     */
+    public TrialRunner(Environment environment, int threads, EpisodeBudget budget, ResultSink results) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive, got " + threads);
+        }
+        this.environment = environment;
+        this.budget = budget;
+        this.results = results;
+        this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    /**
+     * Runs the given number of trials for one kind of agent and returns the statistics of the number
+     * of steps the agent took to capture the target.
+     *
+     * @param agent     the agent's name, recorded with each episode in the result sink
+     * @param factory   creates the agent for each trial
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @param numTrials the number of trials to run
+     * @return the capture statistics across all trials
+     */
+    public CaptureStats captureStats(String agent, AgentFactory factory, long agentSeed, int numTrials) {
+        return runTrials(scalarTrials(agent, factory, agentSeed), CHUNK_SIZE, 0, numTrials);
+    }
+
+    /**
+     * Runs trials for one kind of agent in batches until the given rule says the mean is known
+     * precisely enough, and returns the statistics of the number of steps the agent took to capture
+     * the target. The trials are the first ones of {@link #captureStats(String, AgentFactory, long, int)}.
+     *
+     * @param agent     the agent's name, recorded with each episode in the result sink
+     * @param factory   creates the agent for each trial
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @param rule      decides after each batch whether to stop
+     * @return the capture statistics across all trials run
+     */
+    public CaptureStats captureStats(String agent, AgentFactory factory, long agentSeed, StoppingRule rule) {
+        return runUntil(scalarTrials(agent, factory, agentSeed), CHUNK_SIZE, rule);
+    }
+
+    /**
+     * Runs the given number of trials for an agent with a batch move, advancing the given number of
+     * episodes in lockstep, and returns the statistics of the number of steps the agent took to
+     * capture the target. The trials are the same as those of
+     * {@link #captureStats(String, AgentFactory, long, int)} for the same agent.
+     *
+     * @param agent     the agent's name, recorded with each episode in the result sink
+     * @param move      the batch move of the agent
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @param numTrials the number of trials to run
+     * @param lanes     the number of episodes each worker advances together
+     * @return the capture statistics across all trials
+     */
+    public CaptureStats captureStats(String agent, BatchMove move, long agentSeed, int numTrials, int lanes) {
+        return runTrials(batchedTrials(agent, move, agentSeed, lanes), lanes * REFILLS_PER_CHUNK, 0, numTrials);
+    }
+
+    /**
+     * Runs trials for an agent with a batch move in batches until the given rule says the mean is
+     * known precisely enough, advancing the given number of episodes in lockstep.
+     *
+     * @param agent     the agent's name, recorded with each episode in the result sink
+     * @param move      the batch move of the agent
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @param rule      decides after each batch whether to stop
+     * @param lanes     the number of episodes each worker advances together
+     * @return the capture statistics across all trials run
+     */
+    public CaptureStats captureStats(String agent, BatchMove move, long agentSeed, StoppingRule rule, int lanes) {
+        return runUntil(batchedTrials(agent, move, agentSeed, lanes), lanes * REFILLS_PER_CHUNK, rule);
+    }
+
+    /**
+     * Runs contiguous batches of trials until the rule is satisfied.
+     *
+     * @param trials    runs a range of trials on one worker
+     * @param chunkSize the number of trials handed to a worker at a time
+     * @param rule      decides after each batch whether to stop
+     * @return the merged statistics of every batch
+     */
+    private CaptureStats runUntil(TrialRange trials, int chunkSize, StoppingRule rule) {
+        CaptureStats stats = new CaptureStats();
+        long done = 0;
+        while (!rule.isSatisfied(stats, done)) {
+            int batch = rule.nextBatch(done);
+            stats.merge(runTrials(trials, chunkSize, done, batch));
+            done += batch;
+        }
+        return stats;
+    }
+
+    /**
+     * Runs a contiguous range of trials in fixed-size chunks, on the calling thread or on the pool,
+     * and merges the statistics of the chunks in trial order.
+     *
+     * @param trials     runs a range of trials on one worker
+     * @param chunkSize  the number of trials handed to a worker at a time
+     * @param firstTrial the index of the first trial
+     * @param numTrials  the number of trials to run
+     * @return the merged statistics of all chunks
+     */
+    private CaptureStats runTrials(TrialRange trials, int chunkSize, long firstTrial, int numTrials) {
+        int numChunks = (numTrials + chunkSize - 1) / chunkSize;
+        IntFunction<CaptureStats> chunk = index -> {
+            int offset = index * chunkSize;
+            return trials.run(firstTrial + offset, Math.min(numTrials - offset, chunkSize));
+        };
+
+        CaptureStats total = new CaptureStats();
+        if (pool == null) {
+            for (int index = 0; index < numChunks; index++) {
+                total.merge(chunk.apply(index));
+            }
+        } else {
+            List<ForkJoinTask<CaptureStats>> tasks = new ArrayList<>(numChunks);
+            for (int index = 0; index < numChunks; index++) {
+                int task = index;
+                tasks.add(pool.submit(() -> chunk.apply(task)));
+            }
+            // Combine the chunk results in trial order
+            for (ForkJoinTask<CaptureStats> task : tasks) {
+                total.merge(task.join());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns a range runner that plays each trial with an agent object, reusing agents from a pool
+     * of slots shared by the chunks of the run.
+     *
+     * @param agent     the agent's name, recorded with each episode
+     * @param factory   creates the agent of each new slot
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @return the range runner
+     */
+    private TrialRange scalarTrials(String agent, AgentFactory factory, long agentSeed) {
+        Queue<TrialSlot> idle = new ConcurrentLinkedQueue<>(); // Slots not in use by any chunk
+        return (firstTrial, numTrials) -> {
+            TrialSlot slot = idle.poll();
+            if (slot == null) {
+                slot = new TrialSlot(environment, factory);
+            }
+            CaptureStats stats = new CaptureStats();
+            ResultSink.Batch records = results != null ? results.batch(agent, agentSeed) : null;
+            for (long trial = firstTrial; trial < firstTrial + numTrials; trial++) {
+                runTrial(slot, agentSeed, trial, budget, stats, records);
+            }
+            idle.add(slot);
+            if (records != null) {
+                results.submit(records);
+            }
+            return stats;
+        };
+    }
+
+    /**
+     * Returns a range runner that plays the trials in lockstep on a {@link BatchedEpisodeEngine}.
+     *
+     * @param agent     the agent's name, recorded with each episode
+     * @param move      the batch move of the agent
+     * @param agentSeed the seed from which every trial's random streams are derived
+     * @param lanes     the number of episodes advanced together
+     * @return the range runner
+     */
+    private TrialRange batchedTrials(String agent, BatchMove move, long agentSeed, int lanes) {
+        return (firstTrial, numTrials) -> {
+            CaptureStats stats = new CaptureStats();
+            ResultSink.Batch records = results != null ? results.batch(agent, agentSeed) : null;
+            new BatchedEpisodeEngine(environment, Math.min(lanes, numTrials), budget)
+                    .run(agent, move, agentSeed, firstTrial, numTrials, stats, records);
+            if (records != null) {
+                results.submit(records);
+            }
+            return stats;
+        };
+    }
+
+    /**
+     * Runs a contiguous range of trials on one worker.
+     */
+    @FunctionalInterface
+    private interface TrialRange {
+        /**
+         * Runs the given trials and returns their statistics.
+         *
+         * @param firstTrial the index of the first trial
+         * @param numTrials  the number of trials
+         * @return the statistics of the trials
+         */
+        CaptureStats run(long firstTrial, int numTrials);
+    }
+
+    /**
+     * Sets up and runs a single trial with the slot's agent and target, and records its outcome.
+     *
+     * @param slot      the agent and target to reset for the trial
+     * @param agentSeed the seed from which the trial's random streams are derived
+     * @param trial     the index of the trial
+     * @param budget    the limits of the episode
+     * @param stats     receives the rounds played and the steps taken, as a capture or as censored
+     * @param records   receives the record of the episode, or null
+     * @return true if the agent captured the target within the budget
+     */
+    static boolean runTrial(TrialSlot slot, long agentSeed, long trial, EpisodeBudget budget, CaptureStats stats,
+                            ResultSink.Batch records) {
+        // Everything random in the trial comes from its own stream, in a fixed order
+        Environment env = slot.getEnvironment();
+        SplittableRandom random = Seeds.stream(agentSeed, trial);
+        int nodeCount = env.getNodeCount();
+        int agentStart = random.nextInt(nodeCount) + 1;
+        int targetStart = random.nextInt(nodeCount) + 1;
+        Target target = slot.target(targetStart, random.split());
+        Agent agent = slot.agent(agentStart, random.split());
+        SimulationEvents.EpisodeEvent event = new SimulationEvents.EpisodeEvent();
+        event.begin();
+        long start = records != null ? System.nanoTime() : 0;
+        long outcome = runEpisode(env, agent, target, budget);
+        boolean captured = outcome >= 0;
+        if (records != null) {
+            records.add(trial, agentStart, targetStart, agent.getStepsTaken(), captured, System.nanoTime() - start);
+        }
+        event.finish(agent.getClass().getSimpleName(), agent.getStepsTaken(), captured);
+
+        // Record the length of the episode in rounds, and the steps taken for the agent
+        if (captured) {
+            stats.record(outcome, agent.getStepsTaken());
+        } else {
+            stats.censor(~outcome);
+        }
+        return captured;
+    }
+
+    /**
+     * Runs a single episode until the agent captures the target or the budget runs out.
+     *
+     * @param env    the environment
+     * @param agent  the pursuing agent
+     * @param target the target being pursued
+     * @param budget the limits of the episode
+     * @return the number of rounds played if the agent captured the target, or its bitwise
+     *         complement (a negative number) if the episode was cut off
+     */
+    static long runEpisode(Environment env, Agent agent, Target target, EpisodeBudget budget) {
+        long maxRounds = budget.maxRounds();
+        long deadline = budget.deadline(System.nanoTime());
+        Metrics.AgentTimers timers = Metrics.ENABLED ? Metrics.timers(agent.getClass()) : null;
+
+        // Run the simulation until the target is captured
+        for (long round = 0; ; round++) {
+            // Stop at the round limit, and check the clock every so many rounds
+            if (round == maxRounds
+                    || round % EpisodeBudget.CLOCK_CHECK_INTERVAL == 0 && budget.isTimed() && System.nanoTime() - deadline > 0) {
+                return ~round;
+            }
+
+            // Move the target
+            target.move(env);
+
+            // Move the agent and check if it captures the target
+            if (!capture(agent, target, timers)) {
+                move(env, agent, target, timers);
+            }
+
+            // Check if the agent captured the target
+            if (capture(agent, target, timers)) {
+                return round + 1;
+            }
+        }
+    }
+
+    /**
+     * Calls the agent's {@code capture}, timing it when metrics are enabled.
+     *
+     * @param agent  the pursuing agent
+     * @param target the target being pursued
+     * @param timers the agent's timers, or null when metrics are disabled
+     * @return true if the agent captured the target
+     */
+    private static boolean capture(Agent agent, Target target, Metrics.AgentTimers timers) {
+        if (!Metrics.ENABLED) {
+            return agent.capture(target);
+        }
+        long start = System.nanoTime();
+        boolean captured = agent.capture(target);
+        timers.capture.record(System.nanoTime() - start);
+        return captured;
+    }
+
+    /**
+     * Calls the agent's {@code move}, timing it when metrics are enabled.
+     *
+     * @param env    the environment
+     * @param agent  the pursuing agent
+     * @param target the target being pursued
+     * @param timers the agent's timers, or null when metrics are disabled
+     */
+    private static void move(Environment env, Agent agent, Target target, Metrics.AgentTimers timers) {
+        if (!Metrics.ENABLED) {
+            agent.move(env, target);
+            return;
+        }
+        long start = System.nanoTime();
+        agent.move(env, target);
+        timers.move.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Shuts down the worker pool, if any.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
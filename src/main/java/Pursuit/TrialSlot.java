@@ -0,0 +1,73 @@
+/**
+ * Holds the agent and target that one worker reuses from trial to trial.
+ * <p>
+ * The first trial creates both objects; every later trial resets them in place with its own start
+ * nodes and random streams. A reset agent behaves exactly like a newly constructed one, so reusing
+ * a slot changes nothing about the trials except that their setup no longer allocates agent state.
+ * A slot is used by one thread at a time.
+ * </p>
+ *
+ * @author Robert Jean Pierre
+ */
+package Pursuit;
+
+import java.util.random.RandomGenerator;
+
+class TrialSlot {
+    private final Environment environment;
+    private final AgentFactory factory; // Creates the agent for the first trial
+    private Agent agent;                // Null until the first trial
+    private Target target;              // Null until the first trial
+
+    /**
+     * Constructs an empty slot whose agents come from the given factory.
+     *
+     * @param environment the environment shared by all trials
+     * @param factory     creates the agent for the first trial
+     */
+    TrialSlot(Environment environment, AgentFactory factory) {
+        this.environment = environment;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the environment of the slot.
+     *
+     * @return the environment
+     */
+    Environment getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Returns the slot's target, set up for a new trial.
+     *
+     * @param startNode the starting node of the target
+     * @param rand      the random number generator for the target's moves
+     * @return the target, created on first use and reset afterwards
+     */
+    Target target(int startNode, RandomGenerator rand) {
+        if (target == null) {
+            target = new Target(environment, startNode, rand);
+        } else {
+            target.reset(startNode, rand);
+        }
+        return target;
+    }
+
+    /**
+     * Returns the slot's agent, set up for a new trial.
+     *
+     * @param startNode the starting node of the agent
+     * @param rand      the random number generator for the agent's decisions
+     * @return the agent, created on first use and reset afterwards
+     */
+    Agent agent(int startNode, RandomGenerator rand) {
+        if (agent == null) {
+            agent = factory.create(environment, startNode, rand);
+        } else {
+            agent.reset(startNode, rand);
+        }
+        return agent;
+    }
+}